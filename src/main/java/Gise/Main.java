@@ -4,6 +4,7 @@ import Gise.presentacion.LoginForm;
 import Gise.presentacion.MainForm;
 import Gise.presentacion.EmpleadoView;
 import Gise.presentacion.CargoView;
+import Gise.persistencia.SchemaMigrator;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -21,6 +22,9 @@ public class Main {
         System.setProperty("awt.useSystemAAFontSettings", "on");
         System.setProperty("swing.aatext", "true");
 
+        // Aplicar las migraciones pendientes del esquema antes de abrir la interfaz
+        String errorMigracion = migrarEsquema();
+
         SwingUtilities.invokeLater(() -> {
             // Crear ventana principal con menú mejorado
             JFrame menuPrincipal = crearMenuPrincipal();
@@ -29,9 +33,29 @@ public class Main {
             // Mostrar login
             LoginForm loginForm = new LoginForm(new MainForm());
             loginForm.setVisible(true);
+
+            if (errorMigracion != null) {
+                JOptionPane.showMessageDialog(menuPrincipal,
+                        "No se pudo actualizar el esquema de la base de datos:\n" + errorMigracion,
+                        "Advertencia", JOptionPane.WARNING_MESSAGE);
+            }
         });
     }
 
+    /**
+     * Aplica las migraciones pendientes. Devuelve el mensaje de error, o null si no hubo errores.
+     * Un error no impide abrir la aplicación: las migraciones solo agregan mejoras al esquema.
+     */
+    private static String migrarEsquema() {
+        try {
+            new SchemaMigrator().migrate();
+            return null;
+        } catch (Exception ex) {
+            System.err.println("Error al migrar el esquema: " + ex.getMessage());
+            return ex.getMessage();
+        }
+    }
+
     private static void setupUIDefaults() {
         // Configurar fuentes por defecto
         Font defaultFont = new Font("Segoe UI", Font.PLAIN, 12);
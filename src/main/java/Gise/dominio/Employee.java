@@ -9,6 +9,9 @@ public class Employee {
     private int positionId; // ID de la posición/cargo del empleado
     private Date hireDate; // Fecha de contrataciónthanysalazar4@thhbxqkjwsiubebhw
     private double salary; // Salario del empleado
+    private String positionTitle; // Título del cargo (solo se completa en las consultas que lo incluyen)
+    private long version; // Versión de la fila (rowversion) al leerla; 0 si no se conoce
+    private String externalKey; // Identificador en el sistema de RR. HH. de origen (opcional)
 
     // Constructor vacío: útil cuando se necesita crear un objeto sin inicializar atributos
     public Employee() {
@@ -75,6 +78,36 @@ public class Employee {
         this.salary = salary;
     }
 
+    // Obtiene el título del cargo del empleado (null si la consulta no lo incluyó)
+    public String getPositionTitle() {
+        return positionTitle;
+    }
+
+    // Establece el título del cargo del empleado
+    public void setPositionTitle(String positionTitle) {
+        this.positionTitle = positionTitle;
+    }
+
+    // Obtiene la versión de la fila leída, usada para detectar modificaciones de otro usuario
+    public long getVersion() {
+        return version;
+    }
+
+    // Establece la versión de la fila (0 para actualizar sin comprobarla)
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    // Obtiene el identificador del empleado en el sistema de origen (null si no tiene)
+    public String getExternalKey() {
+        return externalKey;
+    }
+
+    // Establece el identificador del empleado en el sistema de origen
+    public void setExternalKey(String externalKey) {
+        this.externalKey = externalKey;
+    }
+
     // Devuelve el salario formateado como una cadena con dos decimales y símbolo de dólar
     public String getFormattedSalary() {
         return String.format("$%.2f", salary);
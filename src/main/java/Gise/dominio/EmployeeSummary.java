@@ -0,0 +1,32 @@
+package Gise.dominio;
+
+import java.time.LocalDate;
+
+/**
+ * Proyección de un empleado con los datos que muestra el listado de empleados: sin el ID del
+ * cargo, la versión ni la clave externa, y con el título del cargo ya resuelto.
+ *
+ * @param id            ID del empleado.
+ * @param name          nombre del empleado.
+ * @param positionTitle título del cargo, o null si el empleado no tiene cargo.
+ * @param hireDate      fecha de contratación.
+ * @param salary        salario.
+ */
+public record EmployeeSummary(int id, String name, String positionTitle, LocalDate hireDate, double salary) {
+
+    /**
+     * Crea el resumen de un empleado completo (por ejemplo, uno devuelto por una consulta que
+     * incluye el título del cargo).
+     */
+    public static EmployeeSummary of(Employee employee) {
+        LocalDate hireDate = employee.getHireDate() == null
+                ? null : new java.sql.Date(employee.getHireDate().getTime()).toLocalDate();
+        return new EmployeeSummary(employee.getId(), employee.getName(), employee.getPositionTitle(),
+                hireDate, employee.getSalary());
+    }
+
+    // Devuelve el salario formateado como una cadena con dos decimales y símbolo de dólar
+    public String formattedSalary() {
+        return String.format("$%.2f", salary);
+    }
+}
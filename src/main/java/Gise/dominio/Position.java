@@ -1,9 +1,20 @@
 package Gise.dominio;
 
+import java.util.function.Supplier;
+
 public class Position {
+    /**
+     * Largo máximo de {@link #getShortDescription()}, incluidos los puntos suspensivos.
+     */
+    public static final int SHORT_DESCRIPTION_LENGTH = 100;
+
     private int id;
     private String title;
     private String description;
+    private Supplier<String> descriptionLoader; // Lee la descripción completa al pedirla por primera vez (null si ya se conoce)
+    private String shortDescription; // Descripción abreviada mientras la completa no se haya leído
+    private long version; // Versión de la fila (rowversion) al leerla; 0 si no se conoce
+    private String externalKey; // Identificador en el sistema de RR. HH. de origen (opcional)
 
     public Position() {
     }
@@ -14,6 +25,20 @@ public class Position {
         this.description = description;
     }
 
+    /**
+     * Crea una copia del cargo. Si la descripción todavía no se leyó, la copia la leerá por su
+     * cuenta al pedirla.
+     */
+    public Position(Position other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.description = other.description;
+        this.descriptionLoader = other.descriptionLoader;
+        this.shortDescription = other.shortDescription;
+        this.version = other.version;
+        this.externalKey = other.externalKey;
+    }
+
     public int getId() {
         return id;
     }
@@ -30,12 +55,76 @@ public class Position {
         this.title = title;
     }
 
+    /**
+     * Devuelve la descripción completa. Si el cargo se leyó sin ella, se lee en este momento
+     * (una consulta la primera vez).
+     *
+     * @throws RuntimeException si falla la lectura de la descripción.
+     */
     public String getDescription() {
+        if (descriptionLoader != null) {
+            description = descriptionLoader.get();
+            descriptionLoader = null;
+            shortDescription = null;
+        }
         return description;
     }
 
     public void setDescription(String description) {
         this.description = description;
+        this.descriptionLoader = null;
+        this.shortDescription = null;
+    }
+
+    /**
+     * Indica que la descripción completa se leerá recién cuando se pida con
+     * {@link #getDescription()}.
+     *
+     * @param start  comienzo de la descripción, usado para {@link #getShortDescription()}.
+     * @param loader lee la descripción completa.
+     */
+    public void setDescriptionLoader(String start, Supplier<String> loader) {
+        this.description = null;
+        this.descriptionLoader = loader;
+        this.shortDescription = shorten(start);
+    }
+
+    /**
+     * Indica si la descripción completa ya está en memoria.
+     */
+    public boolean isDescriptionLoaded() {
+        return descriptionLoader == null;
+    }
+
+    /**
+     * Devuelve la descripción recortada a {@link #SHORT_DESCRIPTION_LENGTH} caracteres (terminada
+     * en "..." si se recortó), sin leer la descripción completa si todavía no se leyó.
+     */
+    public String getShortDescription() {
+        return descriptionLoader != null ? shortDescription : shorten(description);
+    }
+
+    private static String shorten(String text) {
+        if (text == null || text.length() <= SHORT_DESCRIPTION_LENGTH) {
+            return text;
+        }
+        return text.substring(0, SHORT_DESCRIPTION_LENGTH - 3) + "...";
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public String getExternalKey() {
+        return externalKey;
+    }
+
+    public void setExternalKey(String externalKey) {
+        this.externalKey = externalKey;
     }
 
     @Override
@@ -0,0 +1,18 @@
+package Gise.dominio;
+
+import java.math.BigDecimal;
+
+/**
+ * Cantidad de empleados y estadísticas de salario de un cargo, calculadas en la base de datos.
+ * Los importes conservan la precisión DECIMAL de la columna salary.
+ *
+ * @param positionId    ID del cargo.
+ * @param headcount     cantidad de empleados.
+ * @param totalSalary   suma de los salarios (nómina del cargo).
+ * @param minSalary     salario más bajo.
+ * @param maxSalary     salario más alto.
+ * @param averageSalary salario promedio, redondeado a dos decimales.
+ */
+public record PositionSalaryStats(int positionId, int headcount, BigDecimal totalSalary, BigDecimal minSalary,
+                                  BigDecimal maxSalary, BigDecimal averageSalary) {
+}
@@ -0,0 +1,17 @@
+package Gise.dominio;
+
+/**
+ * Proyección de un cargo con solo su ID y su título, para listas y ComboBox que no necesitan la
+ * descripción.
+ *
+ * @param id    ID del cargo.
+ * @param title título del cargo.
+ */
+public record PositionTitle(int id, String title) {
+
+    // Es lo que se muestra en el JComboBox
+    @Override
+    public String toString() {
+        return title;
+    }
+}
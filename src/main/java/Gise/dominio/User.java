@@ -7,6 +7,7 @@ public class User {
     private String passwordHash; // Hash de la contraseña (para mayor seguridad)
     private String email; // Correo electrónico del usuario
     private byte status; // Estado del usuario (activo/inactivo)
+    private long version; // Versión de la fila (rowversion) al leerla; 0 si no se conoce
 
     // Constructor vacío: permite crear un objeto sin inicializar atributos
     public User() {
@@ -73,6 +74,16 @@ public class User {
         this.status = status;
     }
 
+    // Obtiene la versión de la fila leída, usada para detectar modificaciones de otro usuario
+    public long getVersion() {
+        return version;
+    }
+
+    // Establece la versión de la fila (0 para actualizar sin comprobarla)
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     // Método que devuelve una representación del estado del usuario como texto
     public String getStrEstatus() {
         String str = "";
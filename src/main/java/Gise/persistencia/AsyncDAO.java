@@ -0,0 +1,162 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fachada asíncrona sobre {@link EmployeeDAO}, {@link PositionDAO} y {@link UserDAO}.
+ * <p>
+ * Cada llamada se ejecuta en su propio hilo virtual y devuelve un {@link CompletableFuture},
+ * de modo que las vistas pueden lanzar varias cargas independientes a la vez sin bloquear el
+ * hilo de eventos de Swing:
+ * <pre>
+ * asyncDAO.positions(PositionDAO::getAll)
+ *         .thenAccept(cargos -&gt; SwingUtilities.invokeLater(() -&gt; mostrar(cargos)));
+ * </pre>
+ * La cantidad de llamadas que usan la base de datos al mismo tiempo se limita al tamaño máximo
+ * del pool; el resto espera su turno sin ocupar un hilo de plataforma. Cada llamada se ejecuta
+ * dentro de un {@link QueryScope}: el tiempo máximo se aplica también como plazo de las
+ * consultas, y cancelar el futuro (o que venza) interrumpe la llamada y cancela en el servidor
+ * la consulta que esté en curso.
+ */
+public class AsyncDAO {
+
+    /**
+     * Operación sobre un DAO que se ejecuta de forma asíncrona.
+     *
+     * @param <D> tipo del DAO.
+     * @param <T> tipo del resultado.
+     */
+    @FunctionalInterface
+    public interface DaoCall<D, T> {
+        T call(D dao) throws SQLException;
+    }
+
+    private static AsyncDAO instance;
+
+    private final ExecutorService executor; // Un hilo virtual por llamada.
+    private final Semaphore permits; // Limita las llamadas concurrentes al tamaño del pool.
+    private final EmployeeDAO employeeDAO;
+    private final PositionDAO positionDAO;
+    private final UserDAO userDAO;
+
+    private AsyncDAO() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        permits = new Semaphore(ConnectionManager.getInstance().getPool().getMaxSize(), true);
+        employeeDAO = EmployeeDAO.getInstance();
+        positionDAO = PositionDAO.getInstance();
+        userDAO = UserDAO.getInstance();
+    }
+
+    /**
+     * Devuelve la instancia compartida de la fachada.
+     */
+    public static synchronized AsyncDAO getInstance() {
+        if (instance == null) {
+            instance = new AsyncDAO();
+        }
+        return instance;
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de empleados.
+     */
+    public <T> CompletableFuture<T> employees(DaoCall<EmployeeDAO, T> call) {
+        return submit(employeeDAO, call, null);
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de empleados con un tiempo máximo.
+     */
+    public <T> CompletableFuture<T> employees(DaoCall<EmployeeDAO, T> call, Duration timeout) {
+        return submit(employeeDAO, call, timeout);
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de cargos.
+     */
+    public <T> CompletableFuture<T> positions(DaoCall<PositionDAO, T> call) {
+        return submit(positionDAO, call, null);
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de cargos con un tiempo máximo.
+     */
+    public <T> CompletableFuture<T> positions(DaoCall<PositionDAO, T> call, Duration timeout) {
+        return submit(positionDAO, call, timeout);
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de usuarios.
+     */
+    public <T> CompletableFuture<T> users(DaoCall<UserDAO, T> call) {
+        return submit(userDAO, call, null);
+    }
+
+    /**
+     * Ejecuta una operación sobre el DAO de usuarios con un tiempo máximo.
+     */
+    public <T> CompletableFuture<T> users(DaoCall<UserDAO, T> call, Duration timeout) {
+        return submit(userDAO, call, timeout);
+    }
+
+    /**
+     * Lanza la operación en un hilo virtual.
+     *
+     * @param timeout tiempo máximo, o null para esperar sin límite. Al vencer, el futuro se
+     *                completa con {@link java.util.concurrent.TimeoutException}.
+     */
+    private <D, T> CompletableFuture<T> submit(D dao, DaoCall<D, T> call, Duration timeout) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<QueryScope> scopeRef = new AtomicReference<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                permits.acquire();
+                try (QueryScope scope = timeout == null ? QueryScope.open() : QueryScope.open(timeout)) {
+                    scopeRef.set(scope);
+                    if (result.isDone()) {
+                        scope.cancel(); // Se canceló o venció mientras esperaba turno.
+                    } else {
+                        result.complete(call.call(dao));
+                    }
+                } finally {
+                    permits.release();
+                }
+            } catch (InterruptedException ex) {
+                // Solo se interrumpe al cancelar o vencer el futuro, que ya está completo.
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        // Si el futuro se cancela o vence antes de terminar, se cancela la consulta en curso
+        // y se interrumpe el hilo de la llamada.
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                QueryScope scope = scopeRef.get();
+                if (scope != null) {
+                    scope.cancel();
+                }
+                task.cancel(true);
+            }
+        });
+        if (timeout != null) {
+            result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Cantidad de llamadas que pueden usar la base de datos en este momento.
+     */
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+}
@@ -0,0 +1,127 @@
+package Gise.persistencia;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Cambios de una tabla desde un token: las filas insertadas o modificadas, los IDs de las filas
+ * eliminadas y el token para pedir los cambios siguientes.
+ * <p>
+ * El token guarda el último valor de {@code version} (rowversion) ya entregado. Las filas con
+ * una versión mayor cambiaron después; las eliminadas se encuentran por las marcas que dejan los
+ * DAO en la tabla {@code DeletedRows}. El límite superior de cada consulta es
+ * {@code MIN_ACTIVE_ROWVERSION()}: por debajo de ese valor no quedan transacciones abiertas, así
+ * que una fila que se confirme más tarde siempre tendrá una versión mayor que el token devuelto
+ * y aparecerá en la consulta siguiente.
+ * <p>
+ * Para aplicar los cambios se reemplazan (o agregan) las filas de {@link #getChanged()} y luego
+ * se quitan las de {@link #getDeletedIds()}. Una fila puede aparecer en las dos listas solo si
+ * se eliminó; en ese caso la eliminación es la que vale.
+ *
+ * @param <T> tipo de las filas.
+ */
+public final class ChangeSet<T> {
+
+    private final List<T> changed; // Filas insertadas o modificadas, en el orden de la consulta.
+    private final List<Integer> deletedIds; // IDs de las filas eliminadas.
+    private final String token; // Token para pedir los cambios posteriores a este conjunto.
+
+    ChangeSet(List<T> changed, List<Integer> deletedIds, String token) {
+        this.changed = changed;
+        this.deletedIds = deletedIds;
+        this.token = token;
+    }
+
+    /**
+     * Filas insertadas o modificadas desde el token pedido.
+     */
+    public List<T> getChanged() {
+        return changed;
+    }
+
+    /**
+     * IDs de las filas eliminadas desde el token pedido.
+     */
+    public List<Integer> getDeletedIds() {
+        return deletedIds;
+    }
+
+    /**
+     * Devuelve el token para pedir los cambios posteriores a este conjunto.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.isEmpty();
+    }
+
+    /**
+     * Devuelve la mayor versión ya confirmada: todas las escrituras posteriores tendrán una
+     * versión mayor que ésta.
+     */
+    static long committedVersion(Connection connection) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("SELECT CAST(MIN_ACTIVE_ROWVERSION() AS BIGINT) - 1");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Lee los IDs de las filas de la tabla eliminadas con una versión en el rango
+     * ({@code since}, {@code until}]. Desde la versión 0 (todas las filas) no hay nada que quitar,
+     * así que no se leen las marcas.
+     */
+    static List<Integer> deletedIds(Connection connection, String table, long since, long until) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        if (since == 0) {
+            return ids;
+        }
+        String sql = "SELECT id FROM DeletedRows WHERE tableName = ? " +
+                "AND version > CAST(? AS BINARY(8)) AND version <= CAST(? AS BINARY(8)) ORDER BY version";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setLong(2, since);
+            ps.setLong(3, until);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getInt(1));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Codifica una versión como un token opaco para el llamador.
+     */
+    static String encodeToken(long version) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(version).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encodeToken(long)}. Un token null equivale a la
+     * versión 0, es decir, a pedir todas las filas.
+     *
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    static long decodeToken(String token) {
+        if (token == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Token de cambios inválido: " + token, ex);
+        }
+    }
+}
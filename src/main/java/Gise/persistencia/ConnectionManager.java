@@ -3,11 +3,20 @@ package Gise.persistencia;
 import java.sql.Connection; // Representa una conexión a la base de datos.
 import java.sql.DriverManager; // Gestiona los drivers JDBC y establece conexiones.
 import java.sql.SQLException; // Representa errores específicos de la base de datos.
+import java.sql.SQLTimeoutException; // Indica que el pool de la réplica no tenía conexiones libres.
+import java.sql.Statement; // Define las constantes para solicitar claves generadas.
+import java.util.ArrayList; // Lista de sentencias registradas en un QueryScope.
+import java.util.List; // Interfaz de las listas usadas por el préstamo.
+import java.util.concurrent.atomic.LongAdder; // Contador eficiente para estadísticas compartidas entre hilos.
+import java.lang.reflect.InvocationHandler; // Intercepta las llamadas hechas sobre la conexión prestada.
+import java.lang.reflect.InvocationTargetException; // Envuelve las excepciones lanzadas por la conexión real.
+import java.lang.reflect.Method; // Representa el método invocado sobre la conexión prestada.
+import java.lang.reflect.Proxy; // Crea la conexión prestada que se entrega a los DAO.
 
 /**
  * Esta clase se encarga de gestionar la conexión a la base de datos SQL Server utilizando JDBC.
  * Implementa el patrón Singleton para asegurar que solo exista una única instancia
- * de la clase y, por lo tanto, una única conexión de la base de datos compartida.
+ * de la clase y, por lo tanto, un único pool de conexiones compartido por toda la aplicación.
  */
 public class ConnectionManager {
 
@@ -23,7 +32,7 @@ public class ConnectionManager {
      * - user=java : Nombre de usuario para la autenticación.
      * - password=12345 : Contraseña para la autenticación.
      */
-    private static final String STR_CONNECTION = "jdbc:sqlserver://DESKTOP-VK7A429:1433;" +
+    static final String STR_CONNECTION = "jdbc:sqlserver://DESKTOP-VK7A429:1433;" +
             "encrypt=true;" +
             "database=SecurityDB2025;" +
             "trustServerCertificate=true;" +
@@ -31,9 +40,85 @@ public class ConnectionManager {
             "password=12345;" ;
 
     /**
-     * Representa la conexión activa a la base de datos. Inicialmente es nula.
+     * Cadena de conexión de la réplica de solo lectura, tomada de la propiedad del sistema
+     * {@code gise.replica.url}. Si no se configura, las lecturas también van al servidor principal.
+     * Si la cadena no indica {@code ApplicationIntent}, se agrega {@code ApplicationIntent=ReadOnly}.
+     * <p>
+     * - retryMillis : Tiempo durante el cual no se vuelve a intentar usar la réplica después de un fallo.
+     * - readAfterWriteMillis : Tiempo después de una escritura durante el cual las lecturas van al
+     * servidor principal, para no mostrar datos que la réplica todavía no recibió.
+     */
+    private static final String REPLICA_CONNECTION = System.getProperty("gise.replica.url");
+    private static final long REPLICA_RETRY_MILLIS = Long.getLong("gise.replica.retryMillis", 30_000L);
+    private static final long REPLICA_READ_AFTER_WRITE_MILLIS = Long.getLong("gise.replica.readAfterWriteMillis", 5_000L);
+
+    /**
+     * Parámetros del pool de conexiones. Se pueden ajustar con propiedades del sistema
+     * (por ejemplo {@code -Dgise.pool.maxSize=20}) sin recompilar la aplicación.
+     * <p>
+     * - minSize : Conexiones que se intentan mantener abiertas aunque no haya actividad.
+     * - maxSize : Conexiones abiertas como máximo al mismo tiempo.
+     * - borrowTimeoutMillis : Espera máxima por una conexión libre cuando el pool está lleno.
+     * - idleTimeoutMillis : Tiempo tras el cual se cierra una conexión libre por encima del mínimo.
+     * - maxLifetimeMillis : Tiempo máximo de vida de una conexión física antes de reemplazarla.
+     * - validationTimeoutSeconds : Tiempo máximo para validar una conexión al prestarla.
      */
-    private Connection connection;
+    private static final int POOL_MIN_SIZE = Integer.getInteger("gise.pool.minSize", 2);
+    private static final int POOL_MAX_SIZE = Integer.getInteger("gise.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = Long.getLong("gise.pool.borrowTimeoutMillis", 30_000L);
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = Long.getLong("gise.pool.idleTimeoutMillis", 600_000L);
+    private static final long POOL_MAX_LIFETIME_MILLIS = Long.getLong("gise.pool.maxLifetimeMillis", 1_800_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_SECONDS = Integer.getInteger("gise.pool.validationTimeoutSeconds", 5);
+
+    /**
+     * Cantidad máxima de sentencias preparadas que se guardan en caché por cada conexión del pool.
+     */
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("gise.pool.statementCacheSize", 64);
+
+    /**
+     * Pool de conexiones físicas compartido por todos los DAO.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Pool de conexiones a la réplica de solo lectura, o null si no hay réplica configurada.
+     */
+    private final ConnectionPool replicaPool;
+
+    /**
+     * Momentos (System.currentTimeMillis) hasta el que la réplica se considera caída y de la
+     * última escritura confirmada.
+     */
+    private volatile long replicaDownUntil;
+    private volatile long lastWrite;
+
+    /**
+     * Lecturas atendidas por la réplica y fallos al conectarse a ella.
+     */
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder replicaFailures = new LongAdder();
+
+    /**
+     * Aciertos y fallos de la caché de sentencias preparadas de todas las conexiones del pool.
+     */
+    private final StatementCache.Stats statementCacheStats = new StatementCache.Stats();
+
+    /**
+     * Cantidad de sentencias creadas sobre las conexiones del pool. Permite verificar en las
+     * pruebas cuántas consultas genera una operación (por ejemplo, para detectar consultas N+1).
+     */
+    private final LongAdder statementCount = new LongAdder();
+
+    /**
+     * Conexión prestada al hilo actual. Cada hilo trabaja con su propia conexión del pool,
+     * de modo que dos hilos nunca comparten cursores ni transacciones.
+     */
+    private final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
+
+    /**
+     * Sesión (unidad de trabajo) abierta en el hilo actual, si existe.
+     */
+    private final ThreadLocal<Session> currentSession = new ThreadLocal<>();
 
     /**
      * Única instancia de la clase JDBCConnectionManager (para el patrón Singleton).
@@ -46,8 +131,19 @@ public class ConnectionManager {
      * Esto es fundamental para el patrón Singleton.
      */
     private ConnectionManager() {
-        this.connection = null; // Ensures the connection is initially null
+        this(() -> DriverManager.getConnection(STR_CONNECTION),
+                REPLICA_CONNECTION == null || REPLICA_CONNECTION.isBlank() ? null
+                        : () -> DriverManager.getConnection(withReadOnlyIntent(REPLICA_CONNECTION)));
+    }
 
+    /**
+     * Crea un administrador con las fábricas de conexiones indicadas. Lo usan las pruebas para
+     * simular una réplica caída.
+     *
+     * @param primary fábrica de conexiones al servidor principal.
+     * @param replica fábrica de conexiones a la réplica de solo lectura, o null si no hay réplica.
+     */
+    ConnectionManager(ConnectionPool.ConnectionFactory primary, ConnectionPool.ConnectionFactory replica) {
         try {
             // Carga el driver JDBC de Microsoft SQL Server. Esto es necesario para que Java pueda
             // comunicarse con la base de datos SQL Server.
@@ -56,57 +152,373 @@ public class ConnectionManager {
             // Si el driver no se encuentra, se lanza una excepción indicando el error.
             throw new RuntimeException("Error al cargar el driver JDBC de SQL Server", e);
         }
+
+        // Las conexiones físicas se abren bajo demanda la primera vez que se piden.
+        this.pool = new ConnectionPool(primary,
+                POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MILLIS,
+                POOL_IDLE_TIMEOUT_MILLIS, POOL_MAX_LIFETIME_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS);
+        this.replicaPool = replica == null ? null : new ConnectionPool(replica,
+                POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MILLIS,
+                POOL_IDLE_TIMEOUT_MILLIS, POOL_MAX_LIFETIME_MILLIS, POOL_VALIDATION_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Agrega {@code ApplicationIntent=ReadOnly} a la cadena de conexión si no indica otra intención.
+     */
+    private static String withReadOnlyIntent(String url) {
+        if (url.toLowerCase().contains("applicationintent=")) {
+            return url;
+        }
+        return url + (url.endsWith(";") ? "" : ";") + "ApplicationIntent=ReadOnly;";
     }
 
     /**
-     * Este método se encarga de establecer la conexión con la base de datos.
-     * Es sincronizado ('synchronized') para asegurar que solo un hilo a la vez pueda
-     * intentar establecer la conexión, lo cual es importante en entornos multihilo.
+     * Este método se encarga de obtener una conexión con la base de datos.
+     * <p>
+     * La conexión se toma del pool y queda asociada al hilo actual hasta que se llame a
+     * {@link #disconnect()}. Si el hilo ya tiene una conexión prestada (por ejemplo, cuando
+     * un método del DAO llama a otro), se reutiliza la misma y solo se incrementa un contador,
+     * de manera que la conexión vuelve al pool cuando se cierra el último uso.
      *
-     * @return la instancia de la conexión a la base de datos.
+     * @return la conexión prestada al hilo actual.
      * @throws SQLException Si ocurre un error al intentar conectar a la base de datos.
      */
-    public synchronized Connection connect() throws SQLException {
-        // Verifica si la conexión ya existe y si no está cerrada.
-        if (this.connection == null || this.connection.isClosed()) {
+    public Connection connect() throws SQLException {
+        Lease lease = currentLease.get();
+        // Una escritura dentro de una lectura en la réplica usa su propia conexión al principal.
+        if (lease == null || lease.owner != pool) {
             try {
-                // Intenta establecer la conexión utilizando la cadena de conexión.
-                this.connection = DriverManager.getConnection(STR_CONNECTION);
+                // Toma una conexión del pool (o abre una nueva si hace falta).
+                lease = new Lease(pool, pool.borrow(), lease);
             } catch (SQLException exception) {
                 // Si ocurre un error durante la conexión, se lanza una excepción SQLException
                 // con un mensaje más descriptivo que incluye el mensaje original de la excepción.
                 throw new SQLException("Error al conectar a la base de datos: " + exception.getMessage(), exception);
             }
+            currentLease.set(lease);
         }
-        // Retorna la conexión (ya sea la existente o la recién creada).
-        return this.connection;
+        lease.holds++;
+        return lease.proxy;
     }
 
     /**
-     * Este método se encarga de cerrar la conexión a la base de datos.
-     * También lanza una SQLException si ocurre un error al intentar cerrar la conexión.
+     * Obtiene una conexión para una consulta de solo lectura. Se usa igual que {@link #connect()}
+     * y se libera con {@link #disconnect()}.
+     * <p>
+     * Si hay una réplica configurada, la consulta se envía a ella, salvo que el hilo ya tenga una
+     * conexión prestada o una sesión abierta (la lectura se une a ella para ver sus cambios), que
+     * haya habido una escritura hace poco, o que la réplica haya fallado recientemente. Si la
+     * réplica no responde, la consulta se envía al servidor principal.
      *
-     * @throws SQLException Si ocurre un error al intentar cerrar la conexión.
+     * @return la conexión prestada al hilo actual.
+     * @throws SQLException Si ocurre un error al intentar conectar a la base de datos.
+     */
+    public Connection connectForRead() throws SQLException {
+        if (replicaPool == null || currentLease.get() != null || !isReplicaReadable()) {
+            return connect();
+        }
+        PooledConnection pooled;
+        try {
+            pooled = replicaPool.borrow();
+        } catch (SQLException exception) {
+            replicaFailures.increment();
+            // Si la réplica solo estaba ocupada se vuelve a intentar en la próxima lectura.
+            if (!(exception instanceof SQLTimeoutException)) {
+                replicaDownUntil = System.currentTimeMillis() + REPLICA_RETRY_MILLIS;
+            }
+            return connect();
+        }
+        Lease lease = new Lease(replicaPool, pooled, null);
+        lease.holds = 1;
+        currentLease.set(lease);
+        replicaReads.increment();
+        return lease.proxy;
+    }
+
+    private boolean isReplicaReadable() {
+        long now = System.currentTimeMillis();
+        return now >= replicaDownUntil && now - lastWrite >= REPLICA_READ_AFTER_WRITE_MILLIS;
+    }
+
+    /**
+     * Registra que se confirmó una escritura, para que las lecturas de los próximos instantes
+     * vayan al servidor principal.
+     */
+    void markWrite() {
+        lastWrite = System.currentTimeMillis();
+    }
+
+    /**
+     * Presta una conexión exclusiva que no queda asociada al hilo actual, para operaciones
+     * largas como la lectura de un Stream. Vuelve al pool al llamar a su método {@code close()}.
+     * No participa de la sesión abierta en el hilo, si la hubiera.
+     *
+     * @return una conexión del pool para uso exclusivo del llamador.
+     * @throws SQLException Si ocurre un error al intentar conectar a la base de datos.
+     */
+    Connection connectDetached() throws SQLException {
+        try {
+            Lease lease = new Lease(pool, pool.borrow(), null);
+            lease.holds = 1;
+            return lease.proxy;
+        } catch (SQLException exception) {
+            throw new SQLException("Error al conectar a la base de datos: " + exception.getMessage(), exception);
+        }
+    }
+
+    /**
+     * Este método se encarga de liberar la conexión del hilo actual.
+     * En lugar de cerrar la conexión física, la devuelve al pool para que pueda reutilizarse
+     * cuando ya no quedan usos pendientes en el hilo.
+     *
+     * @throws SQLException Si ocurre un error al intentar liberar la conexión.
      */
     public void disconnect() throws SQLException {
-        // Verifica si la conexión existe (no es nula).
-        if (this.connection != null) {
+        // Verifica si el hilo tiene una conexión prestada.
+        Lease lease = currentLease.get();
+        if (lease != null && --lease.holds <= 0) {
+            release(lease);
+        }
+    }
+
+    /**
+     * Abre una unidad de trabajo en el hilo actual. La conexión se pasa a modo transaccional
+     * y todas las operaciones de los DAO ejecutadas en este hilo se unen a la sesión hasta
+     * que se cierre. Si ya hay una sesión abierta, la nueva se une a ella.
+     *
+     * @return la sesión abierta; debe cerrarse con try-with-resources.
+     * @throws SQLException Si ocurre un error al obtener la conexión o iniciar la transacción.
+     */
+    public Session beginSession() throws SQLException {
+        Connection connection = connect();
+        Session outer = currentSession.get();
+        if (outer == null) {
             try {
-                // Intenta cerrar la conexión.
-                this.connection.close();
+                connection.setAutoCommit(false);
             } catch (SQLException exception) {
-                // Si ocurre un error al cerrar la conexión, se lanza una excepción SQLException
-                // con un mensaje más descriptivo.
-                throw new SQLException("Error al cerrar la conexión: " + exception.getMessage(), exception);
-            } finally {
-                // El bloque finally se ejecuta siempre, independientemente de si hubo una excepción o no.
-                // Aquí se asegura que la referencia a la conexión se establezca a null,
-                // indicando que ya no hay una conexión activa gestionada por esta instancia.
-                this.connection = null;
+                disconnect();
+                throw new SQLException("Error al iniciar la transacción: " + exception.getMessage(), exception);
             }
         }
+        Session session = new Session(this, connection, outer);
+        currentSession.set(session);
+        return session;
     }
 
+    /**
+     * Devuelve la sesión abierta en el hilo actual, o null si no hay ninguna.
+     */
+    public Session currentSession() {
+        return currentSession.get();
+    }
+
+    /**
+     * Llamado por {@link Session#close()}: restablece la sesión exterior y libera la conexión.
+     */
+    void endSession(Session session) throws SQLException {
+        if (session.getParent() == null) {
+            currentSession.remove();
+        } else {
+            currentSession.set(session.getParent());
+        }
+        disconnect();
+    }
+
+    /**
+     * Devuelve la conexión al pool sin importar cuántos usos pendientes tenga el hilo.
+     */
+    private void release(Lease lease) {
+        if (!lease.released) {
+            lease.released = true;
+            // Aquí se asegura que el hilo ya no tenga una conexión asociada.
+            if (currentLease.get() == lease) {
+                if (lease.suspended == null) {
+                    currentLease.remove();
+                } else {
+                    currentLease.set(lease.suspended);
+                }
+            }
+            lease.unregisterScopedStatements();
+            if (lease.pooled.getStatementCache() != null) {
+                lease.pooled.getStatementCache().releaseAll();
+            }
+            lease.owner.release(lease.pooled);
+        }
+    }
+
+    /**
+     * Devuelve el pool de conexiones, útil para consultar sus estadísticas.
+     */
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Devuelve el pool de conexiones a la réplica, o null si no hay réplica configurada.
+     */
+    public ConnectionPool getReplicaPool() {
+        return replicaPool;
+    }
+
+    /**
+     * Devuelve la cantidad de lecturas atendidas por la réplica desde el inicio.
+     */
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    /**
+     * Devuelve la cantidad de veces que no se pudo usar la réplica y la lectura fue al principal.
+     */
+    public long getReplicaFailureCount() {
+        return replicaFailures.sum();
+    }
+
+    /**
+     * Devuelve las estadísticas de la caché de sentencias preparadas.
+     */
+    public StatementCache.Stats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /**
+     * Devuelve la cantidad de sentencias creadas sobre las conexiones del pool desde el inicio.
+     */
+    public long getStatementCount() {
+        return statementCount.sum();
+    }
+
+    /**
+     * Cierra el pool y todas sus conexiones libres. Se usa al terminar la aplicación.
+     */
+    public void shutdown() {
+        pool.close();
+        if (replicaPool != null) {
+            replicaPool.close();
+        }
+    }
+
+    /**
+     * Préstamo de una conexión del pool a un hilo. El proxy es lo que reciben los DAO:
+     * su método {@code close()} devuelve la conexión al pool en lugar de cerrarla, y
+     * {@code prepareStatement(sql)} toma la sentencia de la caché de la conexión.
+     */
+    private final class Lease implements InvocationHandler {
+        private final ConnectionPool owner; // Pool al que pertenece la conexión (principal o réplica).
+        private final PooledConnection pooled;
+        private final Lease suspended; // Préstamo de la réplica que se retoma al liberar este.
+        private final Connection proxy;
+        private int holds; // Cantidad de connect() sin su correspondiente disconnect().
+        private boolean released;
+        private List<QueryScope> scopes; // Ámbito en el que se registró cada sentencia de scopedStatements.
+        private List<Statement> scopedStatements; // Sentencias creadas dentro de un QueryScope.
+
+        private Lease(ConnectionPool owner, PooledConnection pooled, Lease suspended) {
+            this.owner = owner;
+            this.pooled = pooled;
+            this.suspended = suspended;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release(this);
+                    return null;
+                case "isClosed":
+                    return released || pooled.getConnection().isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.getConnection() + "]";
+                case "createStatement":
+                case "prepareCall":
+                    statementCount.increment();
+                    return applyScope((Statement) forward(method, args), false);
+                case "prepareStatement":
+                    statementCount.increment();
+                    if (!released && isCacheable(method)) {
+                        int autoGeneratedKeys = args.length > 1 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return applyScope(statementCache().prepare((String) args[0], autoGeneratedKeys), true);
+                    }
+                    // Las demás variantes (tipo de cursor, columnas de claves) no se guardan en caché.
+                    return applyScope((Statement) forward(method, args), false);
+                default:
+                    return forward(method, args);
+            }
+        }
+
+        private Object forward(Method method, Object[] args) throws Throwable {
+            if (released) {
+                throw new SQLException("La conexión ya fue devuelta al pool.");
+            }
+            try {
+                return method.invoke(pooled.getConnection(), args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        /**
+         * Aplica a la sentencia el plazo del {@link QueryScope} abierto en el hilo y la registra
+         * para que el ámbito pueda cancelarla. Las sentencias en caché vuelven a no tener plazo
+         * cuando se usan fuera de un ámbito.
+         */
+        private Statement applyScope(Statement statement, boolean cached) throws SQLException {
+            QueryScope scope = QueryScope.current();
+            if (scope == null) {
+                if (cached) {
+                    statement.setQueryTimeout(0);
+                }
+                return statement;
+            }
+            try {
+                statement.setQueryTimeout(scope.remainingSeconds());
+            } catch (SQLException ex) {
+                statement.close();
+                throw ex;
+            }
+            scope.register(statement);
+            if (scopes == null) {
+                scopes = new ArrayList<>();
+                scopedStatements = new ArrayList<>();
+            }
+            scopes.add(scope);
+            scopedStatements.add(statement);
+            return statement;
+        }
+
+        /**
+         * Quita del ámbito las sentencias de esta conexión antes de devolverla al pool.
+         */
+        private void unregisterScopedStatements() {
+            if (scopes != null) {
+                for (int i = 0; i < scopes.size(); i++) {
+                    scopes.get(i).unregister(scopedStatements.get(i));
+                }
+                scopes = null;
+                scopedStatements = null;
+            }
+        }
+
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        private StatementCache statementCache() {
+            if (pooled.getStatementCache() == null) {
+                pooled.setStatementCache(new StatementCache(pooled.getConnection(), STATEMENT_CACHE_SIZE, statementCacheStats));
+            }
+            return pooled.getStatementCache();
+        }
+    }
+
+
     /**
      * Este método estático y sincronizado ('synchronized') implementa el patrón Singleton.
      * Devuelve la única instancia de JDBCConnectionManager. Si la instancia aún no existe,
@@ -0,0 +1,378 @@
+package Gise.persistencia;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool acotado de conexiones JDBC.
+ * <p>
+ * Mantiene entre {@code minSize} y {@code maxSize} conexiones físicas abiertas para que
+ * cada operación de los DAO no tenga que pagar el costo del handshake TLS y del login
+ * contra SQL Server. Las conexiones se validan al prestarse, se expulsan cuando pasan
+ * demasiado tiempo inactivas y se reemplazan al superar su tiempo máximo de vida.
+ */
+public class ConnectionPool {
+
+    /**
+     * Fábrica de conexiones físicas. Normalmente es {@code DriverManager.getConnection(url)}.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection create() throws SQLException;
+    }
+
+    /**
+     * Si la conexión se usó hace menos de este tiempo no se vuelve a validar al prestarla,
+     * evitando un viaje extra al servidor en ráfagas de operaciones consecutivas.
+     */
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    /**
+     * Intervalo con el que se ejecuta la limpieza de conexiones inactivas o vencidas.
+     */
+    private static final long HOUSEKEEPING_PERIOD_SECONDS = 30;
+
+    private final ConnectionFactory factory;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final int validationTimeoutSeconds;
+
+    // Conexiones libres; se usan en orden LIFO para que las más recientes sigan "calientes".
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ScheduledExecutorService housekeeper;
+
+    private int totalConnections; // Conexiones abiertas (libres, prestadas o en creación).
+    private boolean closed;
+
+    // Contadores para diagnóstico.
+    private long createdCount;
+    private long destroyedCount;
+    private long borrowCount;
+    private long timeoutCount;
+
+    /**
+     * Crea el pool. Las conexiones se abren bajo demanda, por lo que el constructor
+     * no falla aunque el servidor todavía no esté disponible.
+     *
+     * @param factory              fábrica de conexiones físicas.
+     * @param minSize              cantidad mínima de conexiones que se intentan mantener abiertas.
+     * @param maxSize              cantidad máxima de conexiones abiertas al mismo tiempo.
+     * @param borrowTimeoutMillis  tiempo máximo de espera por una conexión libre.
+     * @param idleTimeoutMillis    tiempo tras el cual una conexión libre se cierra (si se supera el mínimo).
+     * @param maxLifetimeMillis    tiempo máximo de vida de una conexión física.
+     * @param validationTimeoutSeconds tiempo máximo para validar una conexión al prestarla.
+     */
+    public ConnectionPool(ConnectionFactory factory, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                          int validationTimeoutSeconds) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: min=" + minSize + ", max=" + maxSize);
+        }
+        this.factory = factory;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pool-housekeeper");
+            thread.setDaemon(true); // No debe impedir que la aplicación termine.
+            return thread;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeeping,
+                HOUSEKEEPING_PERIOD_SECONDS, HOUSEKEEPING_PERIOD_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Presta una conexión del pool. Si no hay conexiones libres y no se alcanzó el máximo,
+     * abre una nueva; en caso contrario espera hasta que otra sea devuelta.
+     *
+     * @return una conexión válida y lista para usarse.
+     * @throws SQLTimeoutException si no se obtuvo una conexión dentro del tiempo de espera.
+     * @throws SQLException si el pool está cerrado o no se pudo abrir una conexión.
+     */
+    PooledConnection borrow() throws SQLException {
+        long deadline = System.nanoTime() + borrowTimeoutNanos;
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !create) {
+                    if (closed) {
+                        throw new SQLException("El pool de conexiones está cerrado.");
+                    }
+                    candidate = idle.pollFirst();
+                    if (candidate == null) {
+                        if (totalConnections < maxSize) {
+                            totalConnections++; // Reserva el lugar antes de abrir la conexión fuera del lock.
+                            create = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                timeoutCount++;
+                                throw new SQLTimeoutException("Tiempo de espera agotado al obtener una conexión del pool ("
+                                        + maxSize + " conexiones en uso).");
+                            }
+                            available.awaitNanos(remaining);
+                        }
+                    }
+                }
+                borrowCount++;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrumpido mientras se esperaba una conexión del pool.", ex);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                return open();
+            }
+            if (isUsable(candidate)) {
+                candidate.touch();
+                return candidate;
+            }
+            destroy(candidate); // La conexión no pasó la validación; se intenta con otra.
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool. Si la conexión quedó cerrada, vencida o el pool
+     * ya fue cerrado, la conexión física se descarta.
+     */
+    void release(PooledConnection pooled) {
+        boolean keep = false;
+        try {
+            Connection connection = pooled.getConnection();
+            if (!connection.isClosed() && !isExpired(pooled)) {
+                if (!connection.getAutoCommit()) {
+                    // Una transacción olvidada no debe filtrarse al siguiente usuario de la conexión.
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                keep = true;
+            }
+        } catch (SQLException ex) {
+            keep = false;
+        }
+
+        if (keep) {
+            lock.lock();
+            try {
+                if (!closed) {
+                    pooled.touch();
+                    idle.addFirst(pooled);
+                    available.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        destroy(pooled);
+    }
+
+    /**
+     * Cierra todas las conexiones libres y evita que se presten nuevas.
+     * Las conexiones prestadas se cierran cuando son devueltas.
+     */
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        toClose.forEach(this::destroy);
+    }
+
+    /**
+     * Tarea periódica: expulsa conexiones inactivas por encima del mínimo y conexiones
+     * vencidas, y luego intenta completar el mínimo de conexiones abiertas.
+     */
+    void housekeeping() {
+        List<PooledConnection> toClose = new ArrayList<>();
+        int missing;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            // Se recorre desde la conexión usada hace más tiempo.
+            Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext()) {
+                PooledConnection pooled = iterator.next();
+                boolean idleTooLong = now - pooled.getLastUsedAt() > idleTimeoutNanos
+                        && totalConnections - toClose.size() > minSize;
+                if (idleTooLong || isExpired(pooled)) {
+                    iterator.remove();
+                    toClose.add(pooled);
+                }
+            }
+            missing = closed ? 0 : minSize - (totalConnections - toClose.size());
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::destroy);
+
+        for (int i = 0; i < missing; i++) {
+            lock.lock();
+            try {
+                if (closed || totalConnections >= minSize) {
+                    break;
+                }
+                totalConnections++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                release(open());
+            } catch (SQLException ex) {
+                break; // El servidor no está disponible; se reintentará en la próxima ejecución.
+            }
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            PooledConnection pooled = new PooledConnection(factory.create());
+            lock.lock();
+            try {
+                createdCount++;
+            } finally {
+                lock.unlock();
+            }
+            return pooled;
+        } catch (SQLException | RuntimeException ex) {
+            lock.lock();
+            try {
+                totalConnections--; // Libera el lugar reservado.
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw ex;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        pooled.closeQuietly();
+        lock.lock();
+        try {
+            totalConnections--;
+            destroyedCount++;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(PooledConnection pooled) {
+        return System.nanoTime() - pooled.getCreatedAt() > maxLifetimeNanos;
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (isExpired(pooled)) {
+            return false;
+        }
+        if (System.nanoTime() - pooled.getLastUsedAt() < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.getConnection().isValid(validationTimeoutSeconds);
+        } catch (SQLException ex) {
+            return false;
+        }
+    }
+
+    // --- Métodos de diagnóstico ---
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getTotalCount() {
+        lock.lock();
+        try {
+            return totalConnections;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveCount() {
+        lock.lock();
+        try {
+            return totalConnections - idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCreatedCount() {
+        lock.lock();
+        try {
+            return createdCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDestroyedCount() {
+        lock.lock();
+        try {
+            return destroyedCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getBorrowCount() {
+        lock.lock();
+        try {
+            return borrowCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getTimeoutCount() {
+        lock.lock();
+        try {
+            return timeoutCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
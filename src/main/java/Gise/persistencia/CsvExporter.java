@@ -0,0 +1,262 @@
+package Gise.persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import Gise.dominio.Employee;
+import Gise.dominio.Position;
+import Gise.dominio.User;
+import Gise.utils.CsvReader;
+
+/**
+ * Exporta tablas completas a archivos CSV (UTF-8) sin cargarlas en memoria.
+ * <p>
+ * Las filas se leen con los Stream de los DAO (cursor de solo avance) y cada línea se codifica
+ * directamente en un buffer directo reutilizable que se escribe en un {@link FileChannel}
+ * cuando se llena. Opcionalmente el archivo se comprime en formato GZIP a medida que se escribe,
+ * con un {@link GZIPOutputStream} sobre el mismo canal. La memoria usada es la misma sin importar
+ * la cantidad de filas.
+ * <p>
+ * Una instancia reutiliza sus buffers entre exportaciones, por lo que no debe usarse desde
+ * varios hilos a la vez.
+ */
+public class CsvExporter {
+
+    /**
+     * Recibe el avance de una exportación.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * @param rows cantidad de filas escritas hasta el momento.
+         */
+        void onProgress(long rows);
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+    private static final int DEFAULT_PROGRESS_INTERVAL = 10_000;
+
+    private final ByteBuffer buffer; // Líneas codificadas pendientes de escribir.
+    private final byte[] transfer; // Copia del buffer directo que recibe el compresor.
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final StringBuilder line = new StringBuilder(256);
+    private int progressInterval = DEFAULT_PROGRESS_INTERVAL;
+
+    public CsvExporter() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize tamaño en bytes de cada buffer directo.
+     */
+    public CsvExporter(int bufferSize) {
+        if (bufferSize < 1024) {
+            throw new IllegalArgumentException("El buffer debe tener al menos 1024 bytes: " + bufferSize);
+        }
+        buffer = ByteBuffer.allocateDirect(bufferSize);
+        transfer = new byte[bufferSize];
+    }
+
+    /**
+     * Cada cuántas filas se avisa el avance al {@link ProgressListener}.
+     */
+    public void setProgressInterval(int progressInterval) {
+        if (progressInterval <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser mayor que cero: " + progressInterval);
+        }
+        this.progressInterval = progressInterval;
+    }
+
+    /**
+     * Exporta todos los empleados.
+     *
+     * @param file     archivo destino (se reemplaza si existe).
+     * @param gzip     si el archivo se comprime en formato GZIP.
+     * @param listener recibe el avance, o null.
+     * @return la cantidad de filas exportadas.
+     */
+    public long exportEmployees(Path file, boolean gzip, ProgressListener listener) throws SQLException, IOException {
+        try (Stream<Employee> rows = EmployeeDAO.getInstance().stream("")) {
+            return export(rows, new String[]{"id", "name", "positionId", "hireDate", "salary"}, employee -> new String[]{
+                    String.valueOf(employee.getId()),
+                    employee.getName(),
+                    String.valueOf(employee.getPositionId()),
+                    employee.getHireDate() == null ? "" : new java.sql.Date(employee.getHireDate().getTime()).toString(),
+                    BigDecimal.valueOf(employee.getSalary()).setScale(2, RoundingMode.HALF_UP).toPlainString()
+            }, file, gzip, listener);
+        }
+    }
+
+    /**
+     * Exporta todos los usuarios (sin el hash de la contraseña).
+     */
+    public long exportUsers(Path file, boolean gzip, ProgressListener listener) throws SQLException, IOException {
+        try (Stream<User> rows = UserDAO.getInstance().stream("")) {
+            return export(rows, new String[]{"id", "name", "email", "status"}, user -> new String[]{
+                    String.valueOf(user.getId()),
+                    user.getName(),
+                    user.getEmail(),
+                    String.valueOf(user.getStatus())
+            }, file, gzip, listener);
+        }
+    }
+
+    /**
+     * Exporta todos los cargos.
+     */
+    public long exportPositions(Path file, boolean gzip, ProgressListener listener) throws SQLException, IOException {
+        try (Stream<Position> rows = PositionDAO.getInstance().stream("")) {
+            return export(rows, new String[]{"id", "title", "description"}, position -> new String[]{
+                    String.valueOf(position.getId()),
+                    position.getTitle(),
+                    position.getDescription()
+            }, file, gzip, listener);
+        }
+    }
+
+    /**
+     * Escribe las filas del Stream como CSV. El Stream no se cierra; lo cierra el llamador.
+     */
+    <T> long export(Stream<T> rows, String[] header, Function<T, String[]> fields, Path file,
+                    boolean gzip, ProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Sink sink = gzip ? new GzipSink(channel) : new Sink(channel)) {
+            buffer.clear();
+            encoder.reset();
+
+            writeLine(header, sink);
+            long count = 0;
+            Iterator<T> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeLine(fields.apply(iterator.next()), sink);
+                if (++count % progressInterval == 0 && listener != null) {
+                    listener.onProgress(count);
+                }
+            }
+            sink.write(buffer);
+            sink.finish();
+            if (listener != null && count % progressInterval != 0) {
+                listener.onProgress(count);
+            }
+            return count;
+        } catch (RuntimeException ex) {
+            // Los Stream de los DAO informan los errores de lectura con RuntimeException.
+            if (ex.getCause() instanceof SQLException) {
+                throw new IOException("Error al leer las filas a exportar: " + ex.getCause().getMessage(), ex.getCause());
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Codifica una línea CSV en el buffer, escribiéndolo en el destino cada vez que se llena.
+     */
+    private void writeLine(String[] values, Sink sink) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(CsvReader.escape(values[i]));
+        }
+        line.append('\n');
+
+        CharBuffer chars = CharBuffer.wrap(line);
+        while (true) {
+            CoderResult result = encoder.encode(chars, buffer, false);
+            if (result.isOverflow()) {
+                sink.write(buffer);
+            } else if (result.isUnderflow()) {
+                return;
+            } else {
+                result.throwException();
+            }
+        }
+    }
+
+    /**
+     * Destino sin comprimir: el buffer se escribe tal cual en el canal.
+     */
+    private static class Sink implements Closeable {
+        final FileChannel channel;
+
+        Sink(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Escribe el contenido del buffer (en modo escritura) y lo deja vacío para seguir llenándolo.
+         */
+        void write(ByteBuffer data) throws IOException {
+            data.flip();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            data.clear();
+        }
+
+        void finish() throws IOException {
+        }
+
+        /**
+         * Libera los recursos del destino (el canal lo cierra el llamador).
+         */
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    /**
+     * Destino comprimido en formato GZIP. El buffer directo se copia a un arreglo para pasarlo al
+     * {@link GZIPOutputStream}, que escribe el encabezado, los datos y el CRC32 final.
+     */
+    private final class GzipSink extends Sink {
+        private final GZIPOutputStream out;
+
+        GzipSink(FileChannel channel) throws IOException {
+            super(channel);
+            out = new GZIPOutputStream(Channels.newOutputStream(channel), transfer.length);
+        }
+
+        @Override
+        void write(ByteBuffer data) throws IOException {
+            data.flip();
+            while (data.hasRemaining()) {
+                int length = Math.min(data.remaining(), transfer.length);
+                data.get(transfer, 0, length);
+                out.write(transfer, 0, length);
+            }
+            data.clear();
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.finish();
+        }
+
+        /**
+         * Cierra el compresor aunque la exportación haya fallado, para liberar su memoria nativa.
+         */
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -1,86 +1,158 @@
 package Gise.persistencia;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import Gise.dominio.Employee;
+import Gise.dominio.EmployeeSummary;
+import Gise.dominio.PositionSalaryStats;
 
 public class EmployeeDAO {
     // Conexión con la base de datos mediante ConnectionManager
-    private ConnectionManager conn;
-    private PreparedStatement ps; // Para ejecutar consultas SQL parametrizadas
-    private ResultSet rs; // Para almacenar resultados de consultas SQL
+    private final ConnectionManager conn;
+
+    // Instancia compartida: el DAO no guarda estado, así que puede usarse desde varios hilos
+    private static EmployeeDAO instance;
+
+    // Caché de getById compartida por todas las instancias del DAO, para que cualquier escritura la invalide.
+    // Tamaño y TTL configurables con -Dgise.employeeCache.maxSize y -Dgise.employeeCache.ttlMillis.
+    private static final EntityCache<Employee> cache = new EntityCache<>(
+            Integer.getInteger("gise.employeeCache.maxSize", 1000),
+            Long.getLong("gise.employeeCache.ttlMillis", 60_000L),
+            EmployeeDAO::copy);
 
     // Constructor: inicializa la conexión a la base de datos
     public EmployeeDAO(){
         conn = ConnectionManager.getInstance();
     }
 
+    /**
+     * Devuelve la instancia compartida del DAO.
+     */
+    public static synchronized EmployeeDAO getInstance() {
+        if (instance == null) {
+            instance = new EmployeeDAO();
+        }
+        return instance;
+    }
+
     /**
      * Crea un nuevo empleado en la base de datos y devuelve el empleado creado.
      */
     public Employee create(Employee employee) throws SQLException {
         Employee res = null;
-        try {
-            // Preparamos la consulta de inserción, permitiendo obtener la clave generada
-            PreparedStatement ps = conn.connect().prepareStatement(
-                    "INSERT INTO Employees (name, positionId, hireDate, salary) VALUES (?, ?, ?, ?)",
-                    java.sql.Statement.RETURN_GENERATED_KEYS
-            );
+        String sql = "INSERT INTO Employees (name, positionId, hireDate, salary, externalKey) VALUES (?, ?, ?, ?, ?)";
+
+        // La inserción y la lectura del registro creado comparten la misma conexión y transacción
+        try (Session session = conn.beginSession();
+             PreparedStatement ps = session.getConnection().prepareStatement(sql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, employee.getName());
             ps.setInt(2, employee.getPositionId());
             ps.setDate(3, new java.sql.Date(employee.getHireDate().getTime()));
             ps.setDouble(4, employee.getSalary());
+            ps.setString(5, employee.getExternalKey());
 
             int affectedRows = ps.executeUpdate(); // Ejecutamos la consulta
 
             // Si la inserción fue exitosa, obtenemos el ID generado
             if (affectedRows != 0) {
-                ResultSet generatedKeys = ps.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    int idGenerado = generatedKeys.getInt(1);
-                    res = getById(idGenerado);
-                } else {
-                    throw new SQLException("Creating employee failed, no ID obtained.");
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        int idGenerado = generatedKeys.getInt(1);
+                        res = getById(idGenerado);
+                    } else {
+                        throw new SQLException("Creating employee failed, no ID obtained.");
+                    }
                 }
             }
-            ps.close();
+            session.commit(); // Se confirma una sola vez, al final de la operación
         } catch (SQLException ex) {
             throw new SQLException("Error al crear el empleado: " + ex.getMessage(), ex);
-        } finally {
-            ps = null;
-            conn.disconnect();
         }
         return res;
     }
 
+    /**
+     * Crea varios empleados en una sola transacción, usando lotes del tamaño por defecto.
+     */
+    public List<Employee> createAll(List<Employee> employees) throws SQLException {
+        return createAll(employees, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Crea varios empleados en una sola transacción, enviando una sentencia por lote.
+     * A cada empleado de la lista se le asigna el ID generado y se devuelve la misma lista.
+     */
+    public List<Employee> createAll(List<Employee> employees, int batchSize) throws SQLException {
+        try (Session session = conn.beginSession()) {
+            SqlBatch.insertAll(session.getConnection(), "Employees",
+                    new String[]{"name", "positionId", "hireDate", "salary", "externalKey"}, employees, batchSize,
+                    (ps, i, employee) -> {
+                        ps.setString(i, employee.getName());
+                        ps.setInt(i + 1, employee.getPositionId());
+                        ps.setDate(i + 2, new java.sql.Date(employee.getHireDate().getTime()));
+                        ps.setDouble(i + 3, employee.getSalary());
+                        ps.setString(i + 4, employee.getExternalKey());
+                    },
+                    Employee::setId);
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al crear los empleados: " + ex.getMessage(), ex);
+        }
+        return employees;
+    }
+
     /**
      * Actualiza la información de un empleado existente en la base de datos.
+     * <p>
+     * Si el empleado tiene versión (se leyó de la base de datos), solo se actualiza si nadie lo
+     * modificó desde entonces; al actualizarlo se le asigna la nueva versión. Con versión 0 se
+     * actualiza sin comprobarla.
+     *
+     * @return true si se actualizó, false si el empleado no existe.
+     * @throws OptimisticLockException si otro usuario modificó el empleado desde que se leyó.
      */
     public boolean update(Employee employee) throws SQLException{
         boolean res = false;
+        String sql = "UPDATE Employees SET name = ?, positionId = ?, hireDate = ?, salary = ? " +
+                "OUTPUT CAST(INSERTED.version AS BIGINT) WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
+
         try {
-            ps = conn.connect().prepareStatement(
-                    "UPDATE Employees SET name = ?, positionId = ?, hireDate = ?, salary = ? WHERE id = ?"
-            );
-            ps.setString(1, employee.getName());
-            ps.setInt(2, employee.getPositionId());
-            ps.setDate(3, new java.sql.Date(employee.getHireDate().getTime()));
-            ps.setDouble(4, employee.getSalary());
-            ps.setInt(5, employee.getId());
+            Connection connection = conn.connect();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, employee.getName());
+                ps.setInt(2, employee.getPositionId());
+                ps.setDate(3, new java.sql.Date(employee.getHireDate().getTime()));
+                ps.setDouble(4, employee.getSalary());
+                ps.setInt(5, employee.getId());
+                ps.setLong(6, employee.getVersion());
+                ps.setLong(7, employee.getVersion());
 
-            // Si la actualización afecta registros, retorna verdadero
-            if(ps.executeUpdate() > 0){
-                res = true;
+                // Si la actualización afecta registros, retorna verdadero y guarda la nueva versión
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        employee.setVersion(rs.getLong(1));
+                        res = true;
+                    }
+                }
+                invalidateCache(employee.getId());
+                if (!res && employee.getVersion() != 0 && !SqlBatch.readVersions(
+                        connection, "Employees", new int[]{employee.getId()}, 1).isEmpty()) {
+                    throw new OptimisticLockException("Employees", employee.getId());
+                }
             }
-            ps.close();
+        } catch (OptimisticLockException ex) {
+            throw ex;
         } catch (SQLException ex) {
             throw new SQLException("Error al modificar el empleado: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
             conn.disconnect();
         }
         return res;
@@ -91,84 +163,406 @@ public class EmployeeDAO {
      */
     public boolean delete(Employee employee) throws SQLException{
         boolean res = false;
-        try {
-            ps = conn.connect().prepareStatement("DELETE FROM Employees WHERE id = ?");
+        // La marca en DeletedRows permite a changesSince informar la eliminación
+        String sql = "DELETE FROM Employees OUTPUT 'Employees', DELETED.id INTO DeletedRows (tableName, id) WHERE id = ?";
+
+        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
             ps.setInt(1, employee.getId());
 
             // Si la eliminación afecta registros, retorna verdadero
-            if(ps.executeUpdate() > 0){
-                res = true;
-            }
-            ps.close();
+            res = ps.executeUpdate() > 0;
+            invalidateCache(employee.getId());
         } catch (SQLException ex) {
             throw new SQLException("Error al eliminar el empleado: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
             conn.disconnect();
         }
         return res;
     }
 
+    /**
+     * Actualiza varios empleados en una sola transacción usando lotes JDBC.
+     *
+     * @return un arreglo alineado con la colección: true si el empleado fue actualizado.
+     */
+    public boolean[] updateAll(Collection<Employee> employees) throws SQLException {
+        return updateAll(employees, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Actualiza varios empleados en una sola transacción, enviando {@code batchSize} filas por lote.
+     * Las versiones se comprueban igual que en {@link #update(Employee)}: si algún empleado fue
+     * modificado por otro usuario no se actualiza ninguno.
+     *
+     * @return un arreglo alineado con la colección: true si el empleado fue actualizado.
+     * @throws OptimisticLockException si otro usuario modificó alguno de los empleados.
+     */
+    public boolean[] updateAll(Collection<Employee> employees, int batchSize) throws SQLException {
+        boolean[] res;
+        Map<Integer, Long> versions;
+        String sql = "UPDATE Employees SET name = ?, positionId = ?, hireDate = ?, salary = ? " +
+                "WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
+
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.executeAll(session.getConnection(), sql, employees, batchSize, (ps, i, employee) -> {
+                ps.setString(i, employee.getName());
+                ps.setInt(i + 1, employee.getPositionId());
+                ps.setDate(i + 2, new java.sql.Date(employee.getHireDate().getTime()));
+                ps.setDouble(i + 3, employee.getSalary());
+                ps.setInt(i + 4, employee.getId());
+                ps.setLong(i + 5, employee.getVersion());
+                ps.setLong(i + 6, employee.getVersion());
+            });
+            invalidateCache(employees.stream().mapToInt(Employee::getId).toArray());
+            versions = SqlBatch.checkVersions(session.getConnection(), "Employees", employees, res,
+                    Employee::getId, Employee::getVersion, batchSize);
+            session.commit();
+        } catch (OptimisticLockException ex) {
+            throw ex;
+        } catch (SQLException ex) {
+            throw new SQLException("Error al modificar los empleados: " + ex.getMessage(), ex);
+        }
+        int i = 0;
+        for (Employee employee : employees) {
+            if (res[i++]) {
+                employee.setVersion(versions.get(employee.getId()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Elimina los empleados con los IDs indicados en una sola transacción.
+     *
+     * @return un arreglo alineado con los IDs: true si el empleado existía y fue eliminado.
+     */
+    public boolean[] deleteByIds(int[] ids) throws SQLException {
+        boolean[] res;
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.deleteByIds(session.getConnection(), "Employees", ids, SqlBatch.DEFAULT_BATCH_SIZE);
+            invalidateCache(ids);
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al eliminar los empleados: " + ex.getMessage(), ex);
+        }
+        return res;
+    }
+
+    /**
+     * Sincroniza empleados por su clave externa, usando lotes del tamaño por defecto.
+     */
+    public UpsertResult upsertAll(List<Employee> employees) throws SQLException {
+        return upsertAll(employees, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Sincroniza empleados por su clave externa en una sola transacción: los que no existen se
+     * insertan y los existentes se actualizan solo si cambió alguno de sus datos, con una
+     * sentencia MERGE por lote en lugar de una lectura y una escritura por empleado.
+     * A los empleados insertados o actualizados se les asigna su ID y su nueva versión.
+     *
+     * @return cuántos empleados se insertaron, se actualizaron y quedaron sin cambios.
+     * @throws IllegalArgumentException si algún empleado no tiene clave externa o si se repite.
+     */
+    public UpsertResult upsertAll(List<Employee> employees, int batchSize) throws SQLException {
+        SqlBatch.checkExternalKeys(employees, Employee::getExternalKey);
+        UpsertResult res;
+        List<Employee> changed = new ArrayList<>();
+
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.upsertAll(session.getConnection(), "Employees",
+                    new String[]{"externalKey", "name", "positionId", "hireDate", "salary"},
+                    new String[]{"VARCHAR(50)", "VARCHAR(100)", "INT", "DATE", "DECIMAL(10,2)"},
+                    employees, batchSize,
+                    (ps, i, employee) -> {
+                        ps.setString(i, employee.getExternalKey());
+                        ps.setString(i + 1, employee.getName());
+                        ps.setInt(i + 2, employee.getPositionId());
+                        ps.setDate(i + 3, new java.sql.Date(employee.getHireDate().getTime()));
+                        ps.setDouble(i + 4, employee.getSalary());
+                    },
+                    (employee, id, version) -> {
+                        employee.setId(id);
+                        employee.setVersion(version);
+                        changed.add(employee);
+                    });
+            invalidateCache(changed.stream().mapToInt(Employee::getId).toArray());
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al sincronizar los empleados: " + ex.getMessage(), ex);
+        }
+        return res;
+    }
+
     /**
      * Busca empleados en la base de datos cuyo nombre contenga la cadena de búsqueda.
      */
     public ArrayList<Employee> search(String name) throws SQLException{
         ArrayList<Employee> records = new ArrayList<>();
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, positionId, hireDate, salary FROM Employees WHERE name LIKE ?");
+        String sql = "SELECT id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE name LIKE ?";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
             ps.setString(1, "%" + name + "%"); // Permite buscar coincidencias parciales en nombres
 
-            rs = ps.executeQuery();
+            try (ResultSet rs = ps.executeQuery()) {
+                // Recorremos los resultados y creamos objetos Employee
+                while (rs.next()) {
+                    records.add(map(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al buscar empleados: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return records;
+    }
+
+    /**
+     * Busca empleados cuyo nombre contenga la cadena indicada, de a una página por vez.
+     * Los resultados se ordenan por nombre e id y se paginan por clave: cada página continúa
+     * después de la última fila de la anterior, sin recorrer las filas ya devueltas.
+     *
+     * @param name     texto a buscar (cadena vacía para todos).
+     * @param pageSize  cantidad máxima de elementos de la página.
+     * @param pageToken token devuelto por la página anterior, o null para pedir la primera.
+     */
+    public Page<Employee> searchPage(String name, int pageSize, String pageToken) throws SQLException {
+        Page.checkPageSize(pageSize);
+        List<Employee> records = new ArrayList<>();
+        String sql = pageToken == null
+                ? "SELECT TOP (?) id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE name LIKE ? ORDER BY name, id"
+                : "SELECT TOP (?) id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE name LIKE ? AND (name > ? OR (name = ? AND id > ?)) ORDER BY name, id";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1); // Se pide una fila extra para saber si hay más páginas
+            ps.setString(2, "%" + name + "%");
+            if (pageToken != null) {
+                Page.Key key = Page.decodeToken(pageToken);
+                ps.setString(3, key.value());
+                ps.setString(4, key.value());
+                ps.setInt(5, key.id());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(map(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al buscar empleados: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return Page.of(records, pageSize, Employee::getName, Employee::getId);
+    }
+
+    /**
+     * Busca empleados cuyo nombre contenga la cadena indicada e incluye el título de su cargo,
+     * resolviendo el cargo en la misma consulta (JOIN) en lugar de una consulta por empleado.
+     */
+    public ArrayList<Employee> searchWithPosition(String name) throws SQLException {
+        ArrayList<Employee> records = new ArrayList<>();
+        String sql = "SELECT e.id, e.name, e.positionId, e.hireDate, e.salary, CAST(e.version AS BIGINT), e.externalKey, p.title " +
+                "FROM Employees e LEFT JOIN Positions p ON p.id = e.positionId WHERE e.name LIKE ?";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setString(1, "%" + name + "%");
 
-            // Recorremos los resultados y creamos objetos Employee
-            while (rs.next()){
-                Employee employee = new Employee();
-                employee.setId(rs.getInt(1));
-                employee.setName(rs.getString(2));
-                employee.setPositionId(rs.getInt(3));
-                employee.setHireDate(rs.getDate(4));
-                employee.setSalary(rs.getDouble(5));
-                records.add(employee);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapWithPosition(rs));
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al buscar empleados: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return records;
     }
 
     /**
-     * Obtiene un empleado de la base de datos basado en su ID.
+     * Versión paginada de {@link #searchWithPosition(String)}; ver {@link #searchPage(String, int, String)}.
+     */
+    public Page<Employee> searchWithPositionPage(String name, int pageSize, String pageToken) throws SQLException {
+        Page.checkPageSize(pageSize);
+        List<Employee> records = new ArrayList<>();
+        String select = "SELECT TOP (?) e.id, e.name, e.positionId, e.hireDate, e.salary, CAST(e.version AS BIGINT), e.externalKey, p.title " +
+                "FROM Employees e LEFT JOIN Positions p ON p.id = e.positionId WHERE e.name LIKE ?";
+        String sql = pageToken == null
+                ? select + " ORDER BY e.name, e.id"
+                : select + " AND (e.name > ? OR (e.name = ? AND e.id > ?)) ORDER BY e.name, e.id";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1); // Se pide una fila extra para saber si hay más páginas
+            ps.setString(2, "%" + name + "%");
+            if (pageToken != null) {
+                Page.Key key = Page.decodeToken(pageToken);
+                ps.setString(3, key.value());
+                ps.setString(4, key.value());
+                ps.setInt(5, key.id());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapWithPosition(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al buscar empleados: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return Page.of(records, pageSize, Employee::getName, Employee::getId);
+    }
+
+    /**
+     * Lista los empleados cuyo nombre contenga la cadena indicada, de a una página por vez, con
+     * solo las columnas que muestra el listado. La consulta se resuelve con el índice por nombre
+     * (que incluye esas columnas) y el título del cargo, sin leer la versión ni la clave externa.
+     * La paginación es igual que en {@link #searchPage(String, int, String)}.
+     */
+    public Page<EmployeeSummary> listSummaries(String name, int pageSize, String pageToken) throws SQLException {
+        return listSummaries(name, pageSize, pageToken, false);
+    }
+
+    /**
+     * Igual que {@link #listSummaries(String, int, String)}, pero siempre en la base principal.
+     * Se usa para las páginas que luego se actualizan con {@link #changesSince(String)}: el token de
+     * {@link #currentChangeToken()} se lee en la principal, y una réplica atrasada podría no tener
+     * una fila confirmada antes del token, que entonces no llegaría en ninguna de las dos consultas.
+     */
+    public Page<EmployeeSummary> listSummariesFromPrimary(String name, int pageSize, String pageToken) throws SQLException {
+        return listSummaries(name, pageSize, pageToken, true);
+    }
+
+    private Page<EmployeeSummary> listSummaries(String name, int pageSize, String pageToken, boolean primary) throws SQLException {
+        Page.checkPageSize(pageSize);
+        List<EmployeeSummary> records = new ArrayList<>();
+        String select = "SELECT TOP (?) e.id, e.name, p.title, e.hireDate, e.salary " +
+                "FROM Employees e LEFT JOIN Positions p ON p.id = e.positionId WHERE e.name LIKE ?";
+        String sql = pageToken == null
+                ? select + " ORDER BY e.name, e.id"
+                : select + " AND (e.name > ? OR (e.name = ? AND e.id > ?)) ORDER BY e.name, e.id";
+
+        try (PreparedStatement ps = (primary ? conn.connect() : conn.connectForRead()).prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1); // Se pide una fila extra para saber si hay más páginas
+            ps.setString(2, "%" + name + "%");
+            if (pageToken != null) {
+                Page.Key key = Page.decodeToken(pageToken);
+                ps.setString(3, key.value());
+                ps.setString(4, key.value());
+                ps.setInt(5, key.id());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Date hireDate = rs.getDate(4);
+                    records.add(new EmployeeSummary(rs.getInt(1), rs.getString(2), rs.getString(3),
+                            hireDate == null ? null : hireDate.toLocalDate(), rs.getDouble(5)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al listar empleados: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return Page.of(records, pageSize, EmployeeSummary::name, EmployeeSummary::id);
+    }
+
+    /**
+     * Devuelve un token que representa el estado actual de los empleados, para pedir más tarde
+     * con {@link #changesSince(String)} solo lo que cambió desde ahora. El token se lee en la base
+     * principal, así que las filas que se sigan con él también deben leerse allí (por ejemplo con
+     * {@link #listSummariesFromPrimary(String, int, String)}).
+     */
+    public String currentChangeToken() throws SQLException {
+        try {
+            return ChangeSet.encodeToken(ChangeSet.committedVersion(conn.connect()));
+        } catch (SQLException ex) {
+            throw new SQLException("Error al obtener el token de cambios: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Devuelve los empleados insertados, modificados o eliminados desde el token indicado, con el
+     * título de su cargo. Se consulta siempre la base principal, porque los tokens se comparan con
+     * sus versiones. El cambio de título de un cargo no marca a sus empleados como modificados.
+     *
+     * @param token token de {@link #currentChangeToken()} o de un ChangeSet anterior, o null
+     *              para obtener todos los empleados.
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public ChangeSet<Employee> changesSince(String token) throws SQLException {
+        long since = ChangeSet.decodeToken(token);
+        List<Employee> records = new ArrayList<>();
+        String sql = "SELECT e.id, e.name, e.positionId, e.hireDate, e.salary, CAST(e.version AS BIGINT), e.externalKey, p.title " +
+                "FROM Employees e LEFT JOIN Positions p ON p.id = e.positionId " +
+                "WHERE e.version > CAST(? AS BINARY(8)) AND e.version <= CAST(? AS BINARY(8)) ORDER BY e.name, e.id";
+
+        try {
+            Connection connection = conn.connect();
+            // El límite se lee antes que las filas: lo que se confirme después queda para la próxima consulta
+            long until = ChangeSet.committedVersion(connection);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setLong(1, since);
+                ps.setLong(2, until);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        records.add(mapWithPosition(rs));
+                    }
+                }
+            }
+            List<Integer> deleted = ChangeSet.deletedIds(connection, "Employees", since, until);
+            return new ChangeSet<>(records, deleted, ChangeSet.encodeToken(until));
+        } catch (SQLException ex) {
+            throw new SQLException("Error al obtener los cambios de empleados: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Obtiene un empleado de la base de datos basado en su ID. Fuera de una sesión se responde
+     * desde la caché de empleados si el empleado se leyó hace poco.
      */
     public Employee getById(int id) throws SQLException{
+        if (conn.currentSession() == null) {
+            return cache.get(id, this::load);
+        }
+        return load(id);
+    }
+
+    /**
+     * Devuelve la caché de {@link #getById(int)}, para consultar sus estadísticas o invalidarla.
+     */
+    public EntityCache<Employee> getCache() {
+        return cache;
+    }
+
+    /**
+     * Lee un empleado desde la base de datos, sin pasar por la caché.
+     */
+    private Employee load(int id) throws SQLException {
         Employee employee = null;
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, positionId, hireDate, salary FROM Employees WHERE id = ?");
-            ps.setInt(1, id);
+        String sql = "SELECT id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE id = ?";
 
-            rs = ps.executeQuery();
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, id);
 
-            // Si encontramos un resultado, inicializamos un objeto Employee
-            if (rs.next()) {
-                employee = new Employee();
-                employee.setId(rs.getInt(1));
-                employee.setName(rs.getString(2));
-                employee.setPositionId(rs.getInt(3));
-                employee.setHireDate(rs.getDate(4));
-                employee.setSalary(rs.getDouble(5));
+            try (ResultSet rs = ps.executeQuery()) {
+                // Si encontramos un resultado, inicializamos un objeto Employee
+                if (rs.next()) {
+                    employee = map(rs);
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al obtener un empleado por ID: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return employee;
@@ -179,31 +573,183 @@ public class EmployeeDAO {
      */
     public ArrayList<Employee> getByPosition(int positionId) throws SQLException{
         ArrayList<Employee> records = new ArrayList<>();
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, positionId, hireDate, salary FROM Employees WHERE positionId = ?");
-            ps.setInt(1, positionId);
+        String sql = "SELECT id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE positionId = ?";
 
-            rs = ps.executeQuery();
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, positionId);
 
-            // Recorremos los resultados y creamos objetos Employee
-            while (rs.next()){
-                Employee employee = new Employee();
-                employee.setId(rs.getInt(1));
-                employee.setName(rs.getString(2));
-                employee.setPositionId(rs.getInt(3));
-                employee.setHireDate(rs.getDate(4));
-                employee.setSalary(rs.getDouble(5));
-                records.add(employee);
+            try (ResultSet rs = ps.executeQuery()) {
+                // Recorremos los resultados y creamos objetos Employee
+                while (rs.next()) {
+                    records.add(map(rs));
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al buscar empleados por cargo: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return records;
     }
+
+    /**
+     * Devuelve la cantidad de empleados y las estadísticas de salario de cada cargo que tenga
+     * empleados, ordenadas por ID de cargo.
+     */
+    public List<PositionSalaryStats> salaryStatsByPosition() throws SQLException {
+        return salaryStatsByPosition(null, null);
+    }
+
+    /**
+     * Igual que {@link #salaryStatsByPosition()}, contando solo los empleados contratados entre
+     * las fechas indicadas (inclusive). El cálculo se hace en la base de datos con una consulta
+     * agrupada, sin traer los empleados.
+     *
+     * @param hiredFrom primera fecha de contratación, o null para no limitarla.
+     * @param hiredTo   última fecha de contratación, o null para no limitarla.
+     */
+    public List<PositionSalaryStats> salaryStatsByPosition(java.util.Date hiredFrom, java.util.Date hiredTo) throws SQLException {
+        List<PositionSalaryStats> records = new ArrayList<>();
+        String where = hiredFrom != null && hiredTo != null ? " WHERE hireDate >= ? AND hireDate <= ?"
+                : hiredFrom != null ? " WHERE hireDate >= ?"
+                : hiredTo != null ? " WHERE hireDate <= ?"
+                : "";
+        String sql = "SELECT positionId, COUNT(*), SUM(salary), MIN(salary), MAX(salary), " +
+                "CAST(ROUND(AVG(salary), 2) AS DECIMAL(38, 2)) FROM Employees" + where +
+                " GROUP BY positionId ORDER BY positionId";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            int i = 1;
+            if (hiredFrom != null) {
+                ps.setDate(i++, new java.sql.Date(hiredFrom.getTime()));
+            }
+            if (hiredTo != null) {
+                ps.setDate(i, new java.sql.Date(hiredTo.getTime()));
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(new PositionSalaryStats(rs.getInt(1), rs.getInt(2), rs.getBigDecimal(3),
+                            rs.getBigDecimal(4), rs.getBigDecimal(5), rs.getBigDecimal(6)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al calcular los salarios por cargo: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return records;
+    }
+
+    /**
+     * Recorre los empleados cuyo nombre contenga la cadena indicada sin cargarlos todos en memoria.
+     * El Stream debe cerrarse (try-with-resources) para devolver la conexión al pool.
+     */
+    public Stream<Employee> stream(String name) throws SQLException {
+        return stream(name, ResultStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Igual que {@link #stream(String)}, indicando cuántas filas se piden al servidor por viaje.
+     */
+    public Stream<Employee> stream(String name, int fetchSize) throws SQLException {
+        String sql = "SELECT id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE name LIKE ? ORDER BY id";
+        try {
+            return ResultStreams.open(conn, sql, fetchSize, ps -> ps.setString(1, "%" + name + "%"), this::map);
+        } catch (SQLException ex) {
+            throw new SQLException("Error al recorrer empleados: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Recorre los empleados de un cargo sin cargarlos todos en memoria.
+     * El Stream debe cerrarse (try-with-resources) para devolver la conexión al pool.
+     */
+    public Stream<Employee> streamByPosition(int positionId) throws SQLException {
+        return streamByPosition(positionId, ResultStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Igual que {@link #streamByPosition(int)}, indicando cuántas filas se piden al servidor por viaje.
+     */
+    public Stream<Employee> streamByPosition(int positionId, int fetchSize) throws SQLException {
+        String sql = "SELECT id, name, positionId, hireDate, salary, CAST(version AS BIGINT), externalKey FROM Employees WHERE positionId = ? ORDER BY id";
+        try {
+            return ResultStreams.open(conn, sql, fetchSize, ps -> ps.setInt(1, positionId), this::map);
+        } catch (SQLException ex) {
+            throw new SQLException("Error al recorrer empleados por cargo: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Construye un Employee a partir de la fila actual (id, name, positionId, hireDate, salary, version,
+     * externalKey).
+     */
+    private Employee map(ResultSet rs) throws SQLException {
+        Employee employee = new Employee();
+        employee.setId(rs.getInt(1));
+        employee.setName(rs.getString(2));
+        employee.setPositionId(rs.getInt(3));
+        employee.setHireDate(rs.getDate(4));
+        employee.setSalary(rs.getDouble(5));
+        employee.setVersion(rs.getLong(6));
+        employee.setExternalKey(rs.getString(7));
+        return employee;
+    }
+
+    /**
+     * Igual que {@link #map(ResultSet)}, leyendo además el título del cargo en la octava columna.
+     */
+    private Employee mapWithPosition(ResultSet rs) throws SQLException {
+        Employee employee = map(rs);
+        employee.setPositionTitle(rs.getString(8));
+        return employee;
+    }
+
+    /**
+     * Descarta de la caché los empleados modificados. Si la escritura forma parte de una sesión,
+     * se descartan otra vez al terminar la transacción, porque hasta entonces otros hilos pueden
+     * haberlos vuelto a leer con los datos anteriores.
+     * También registra la escritura para que las próximas lecturas no vayan a la réplica.
+     */
+    private void invalidateCache(int... ids) {
+        conn.markWrite();
+        Runnable invalidate = () -> {
+            for (int id : ids) {
+                cache.invalidate(id);
+            }
+        };
+        invalidate.run();
+        Session session = conn.currentSession();
+        if (session != null) {
+            session.afterCompletion(invalidate);
+        }
+    }
+
+    /**
+     * Descarta toda la caché de empleados, para escrituras que modifican filas sin conocer sus IDs.
+     * Igual que {@link #invalidateCache(int...)}, dentro de una sesión se repite al terminar la
+     * transacción.
+     */
+    void invalidateAllCache() {
+        conn.markWrite();
+        cache.invalidateAll();
+        Session session = conn.currentSession();
+        if (session != null) {
+            session.afterCompletion(cache::invalidateAll);
+        }
+    }
+
+    /**
+     * Crea una copia independiente de un empleado para guardar o devolver desde la caché.
+     */
+    static Employee copy(Employee employee) {
+        Employee copy = new Employee(employee.getId(), employee.getName(), employee.getPositionId(),
+                employee.getHireDate() == null ? null : (java.util.Date) employee.getHireDate().clone(),
+                employee.getSalary());
+        copy.setPositionTitle(employee.getPositionTitle());
+        copy.setVersion(employee.getVersion());
+        copy.setExternalKey(employee.getExternalKey());
+        return copy;
+    }
 }
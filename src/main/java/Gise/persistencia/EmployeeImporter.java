@@ -0,0 +1,401 @@
+package Gise.persistencia;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerBulkData;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopy;
+import com.microsoft.sqlserver.jdbc.SQLServerBulkCopyOptions;
+import com.microsoft.sqlserver.jdbc.SQLServerConnection;
+
+import Gise.dominio.Position;
+import Gise.utils.CsvReader;
+
+/**
+ * Importa empleados desde un archivo CSV de forma masiva.
+ * <p>
+ * El archivo se procesa registro a registro: cada fila se valida, el título del cargo se
+ * convierte en su ID y la fila se envía a la tabla Employees sin cargar el archivo completo en
+ * memoria. En SQL Server se usa {@link SQLServerBulkCopy}; con otros motores (o si se pide
+ * explícitamente) se usan INSERT por lotes JDBC. Las filas inválidas no se importan y se anotan
+ * en un reporte CSV con su número de línea y el motivo.
+ * <p>
+ * El archivo debe tener una fila de encabezado con las columnas {@code name}, {@code position}
+ * (título del cargo), {@code hireDate} (formato {@code yyyy-MM-dd}) y {@code salary}, en
+ * cualquier orden. Toda la importación es una sola transacción.
+ */
+public class EmployeeImporter {
+
+    /**
+     * Forma de enviar las filas a la base de datos.
+     */
+    public enum Mode {
+        /** Bulk copy si la conexión es de SQL Server; si no, INSERT por lotes. */
+        AUTO,
+        /** Siempre {@link SQLServerBulkCopy}. */
+        BULK_COPY,
+        /** Siempre INSERT por lotes JDBC. */
+        BATCH_INSERT
+    }
+
+    /**
+     * Resumen de una importación.
+     */
+    public static class Result {
+        private final long read;
+        private final long imported;
+        private final long rejected;
+        private final boolean bulkCopy;
+        private final long elapsedMillis;
+
+        Result(long read, long imported, long rejected, boolean bulkCopy, long elapsedMillis) {
+            this.read = read;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.bulkCopy = bulkCopy;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /** Cantidad de registros leídos del archivo, sin contar el encabezado. */
+        public long getRead() {
+            return read;
+        }
+
+        public long getImported() {
+            return imported;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /** Indica si las filas se enviaron con bulk copy (true) o con INSERT por lotes (false). */
+        public boolean isBulkCopy() {
+            return bulkCopy;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+    }
+
+    private static final String[] COLUMNS = {"name", "position", "hireDate", "salary"};
+    private static final int MAX_NAME_LENGTH = 100; // Employees.name es VARCHAR(100).
+    private static final BigDecimal MAX_SALARY = new BigDecimal("99999999.99"); // Employees.salary es DECIMAL(10,2).
+
+    private final ConnectionManager conn;
+    private int batchSize = 10_000; // Filas por lote enviado al servidor.
+    private Mode mode = Mode.AUTO;
+
+    public EmployeeImporter() {
+        conn = ConnectionManager.getInstance();
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Importa los empleados del archivo CSV (UTF-8) y escribe las filas rechazadas en {@code rejectedReport}.
+     */
+    public Result importFile(Path csv, Path rejectedReport) throws SQLException, IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             BufferedWriter report = Files.newBufferedWriter(rejectedReport, StandardCharsets.UTF_8)) {
+            return importCsv(reader, report);
+        }
+    }
+
+    /**
+     * Importa los empleados leídos de {@code csv} y escribe las filas rechazadas en {@code rejected}.
+     *
+     * @throws IOException  si falla la lectura, el encabezado no tiene las columnas esperadas o
+     *                      falla la escritura del reporte.
+     * @throws SQLException si falla la inserción; en ese caso no se importa ninguna fila.
+     */
+    public Result importCsv(Reader csv, Writer rejected) throws SQLException, IOException {
+        long start = System.nanoTime();
+        // Los cargos se leen una vez (normalmente desde la caché) antes de abrir la transacción.
+        Map<String, Integer> positionIds = new HashMap<>();
+        for (Position position : PositionDAO.getInstance().getAll()) {
+            positionIds.putIfAbsent(normalizeTitle(position.getTitle()), position.getId());
+        }
+
+        CsvReader reader = new CsvReader(csv);
+        RowSource source = new RowSource(reader, rejected, positionIds);
+        boolean bulkCopy;
+        try (Session session = conn.beginSession()) {
+            Connection connection = session.getConnection();
+            bulkCopy = mode == Mode.BULK_COPY
+                    || (mode == Mode.AUTO && connection.isWrapperFor(SQLServerConnection.class));
+            if (bulkCopy) {
+                bulkCopy(connection, source);
+            } else {
+                batchInsert(connection, source);
+            }
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al importar empleados: " + ex.getMessage(), ex);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause(); // Error de lectura del CSV mientras el driver pedía filas.
+        }
+        rejected.flush();
+        return new Result(source.read, source.accepted, source.read - source.accepted, bulkCopy,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void bulkCopy(Connection connection, RowSource source) throws SQLException {
+        SQLServerBulkCopyOptions options = new SQLServerBulkCopyOptions();
+        options.setBatchSize(batchSize);
+        options.setBulkCopyTimeout(0); // Sin límite: la duración depende del tamaño del archivo.
+        options.setCheckConstraints(true); // Verifica la clave foránea del cargo.
+        options.setUseInternalTransaction(false); // Se usa la transacción de la sesión.
+
+        // SQLServerBulkCopy necesita la conexión real del driver, no el proxy del pool.
+        try (SQLServerBulkCopy bulk = new SQLServerBulkCopy(connection.unwrap(SQLServerConnection.class))) {
+            bulk.setDestinationTableName("Employees");
+            bulk.setBulkCopyOptions(options);
+            bulk.addColumnMapping(1, "name");
+            bulk.addColumnMapping(2, "positionId");
+            bulk.addColumnMapping(3, "hireDate");
+            bulk.addColumnMapping(4, "salary");
+            bulk.writeToServer(new BulkData(source));
+        }
+    }
+
+    private void batchInsert(Connection connection, RowSource source) throws SQLException, IOException {
+        String sql = "INSERT INTO Employees (name, positionId, hireDate, salary) VALUES (?, ?, ?, ?)";
+        List<Object[]> chunk = new ArrayList<>(Math.min(batchSize, 10_000));
+        Object[] row;
+        while ((row = source.nextRow()) != null) {
+            chunk.add(row);
+            if (chunk.size() == batchSize) {
+                insertChunk(connection, sql, chunk);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            insertChunk(connection, sql, chunk);
+        }
+    }
+
+    private void insertChunk(Connection connection, String sql, List<Object[]> chunk) throws SQLException {
+        SqlBatch.executeAll(connection, sql, chunk, batchSize, (ps, i, row) -> {
+            ps.setString(i, (String) row[0]);
+            ps.setInt(i + 1, (Integer) row[1]);
+            ps.setDate(i + 2, (java.sql.Date) row[2]);
+            ps.setBigDecimal(i + 3, (BigDecimal) row[3]);
+        });
+        chunk.clear();
+    }
+
+    private static String normalizeTitle(String title) {
+        return title == null ? "" : title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lee los registros del CSV, valida cada uno y devuelve solo las filas válidas, ya con el ID
+     * del cargo resuelto. Las filas inválidas se escriben en el reporte de rechazados.
+     */
+    private static final class RowSource {
+        private final CsvReader reader;
+        private final Writer rejected;
+        private final Map<String, Integer> positionIds;
+        private int[] columnIndexes; // Posición en el archivo de cada columna de COLUMNS.
+        private long read;
+        private long accepted;
+
+        private RowSource(CsvReader reader, Writer rejected, Map<String, Integer> positionIds) {
+            this.reader = reader;
+            this.rejected = rejected;
+            this.positionIds = positionIds;
+        }
+
+        /**
+         * Devuelve la siguiente fila válida como {name, positionId, hireDate, salary}, o null al final del archivo.
+         */
+        Object[] nextRow() throws IOException {
+            if (columnIndexes == null) {
+                readHeader();
+            }
+            List<String> record;
+            while ((record = reader.next()) != null) {
+                read++;
+                String reason = null;
+                Object[] row = null;
+                try {
+                    row = parse(record);
+                } catch (IllegalArgumentException ex) {
+                    reason = ex.getMessage();
+                }
+                if (row != null) {
+                    accepted++;
+                    return row;
+                }
+                reject(record, reason);
+            }
+            return null;
+        }
+
+        private void readHeader() throws IOException {
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IOException("El archivo está vacío.");
+            }
+            rejected.write("linea,motivo,registro\n");
+            columnIndexes = new int[COLUMNS.length];
+            Set<String> missing = new LinkedHashSet<>();
+            for (int c = 0; c < COLUMNS.length; c++) {
+                columnIndexes[c] = -1;
+                for (int i = 0; i < header.size(); i++) {
+                    if (header.get(i).trim().equalsIgnoreCase(COLUMNS[c])) {
+                        columnIndexes[c] = i;
+                    }
+                }
+                if (columnIndexes[c] < 0) {
+                    missing.add(COLUMNS[c]);
+                }
+            }
+            if (!missing.isEmpty()) {
+                throw new IOException("Faltan columnas en el encabezado: " + String.join(", ", missing));
+            }
+        }
+
+        private Object[] parse(List<String> record) {
+            for (int index : columnIndexes) {
+                if (index >= record.size()) {
+                    throw new IllegalArgumentException("Faltan campos en el registro.");
+                }
+            }
+            String name = record.get(columnIndexes[0]).trim();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("El nombre está vacío.");
+            }
+            if (name.length() > MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("El nombre supera los " + MAX_NAME_LENGTH + " caracteres.");
+            }
+
+            String title = record.get(columnIndexes[1]);
+            Integer positionId = positionIds.get(normalizeTitle(title));
+            if (positionId == null) {
+                throw new IllegalArgumentException("Cargo desconocido: " + title.trim());
+            }
+
+            java.sql.Date hireDate;
+            try {
+                hireDate = java.sql.Date.valueOf(LocalDate.parse(record.get(columnIndexes[2]).trim()));
+            } catch (DateTimeParseException ex) {
+                throw new IllegalArgumentException("Fecha de contratación inválida: " + record.get(columnIndexes[2]).trim());
+            }
+
+            BigDecimal salary;
+            try {
+                salary = new BigDecimal(record.get(columnIndexes[3]).trim()).setScale(2, RoundingMode.UNNECESSARY);
+            } catch (NumberFormatException | ArithmeticException ex) {
+                throw new IllegalArgumentException("Salario inválido: " + record.get(columnIndexes[3]).trim());
+            }
+            if (salary.signum() < 0 || salary.compareTo(MAX_SALARY) > 0) {
+                throw new IllegalArgumentException("Salario fuera de rango: " + salary);
+            }
+            return new Object[]{name, positionId, hireDate, salary};
+        }
+
+        private void reject(List<String> record, String reason) throws IOException {
+            StringBuilder original = new StringBuilder();
+            for (int i = 0; i < record.size(); i++) {
+                if (i > 0) {
+                    original.append(',');
+                }
+                original.append(CsvReader.escape(record.get(i)));
+            }
+            rejected.write(reader.getRecordLine() + "," + CsvReader.escape(reason) + ","
+                    + CsvReader.escape(original.toString()) + "\n");
+        }
+    }
+
+    /**
+     * Origen de filas para {@link SQLServerBulkCopy}: el driver pide las filas de a una a medida
+     * que las envía, así que el archivo se recorre una sola vez.
+     */
+    private static final class BulkData implements ISQLServerBulkData {
+        private static final long serialVersionUID = 1L;
+        private static final Set<Integer> ORDINALS = Set.of(1, 2, 3, 4);
+        private static final String[] NAMES = {"name", "positionId", "hireDate", "salary"};
+        private static final int[] TYPES = {Types.VARCHAR, Types.INTEGER, Types.DATE, Types.DECIMAL};
+        private static final int[] PRECISIONS = {MAX_NAME_LENGTH, 10, 10, 10};
+
+        private final transient RowSource source;
+        private transient Object[] current;
+
+        private BulkData(RowSource source) {
+            this.source = source;
+        }
+
+        @Override
+        public Set<Integer> getColumnOrdinals() {
+            return ORDINALS;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return NAMES[column - 1];
+        }
+
+        @Override
+        public int getColumnType(int column) {
+            return TYPES[column - 1];
+        }
+
+        @Override
+        public int getPrecision(int column) {
+            return PRECISIONS[column - 1];
+        }
+
+        @Override
+        public int getScale(int column) {
+            return column == 4 ? 2 : 0;
+        }
+
+        @Override
+        public Object[] getRowData() {
+            return current;
+        }
+
+        @Override
+        public boolean next() {
+            try {
+                current = source.nextRow();
+            } catch (IOException ex) {
+                // La interfaz del driver no admite IOException; se recupera en importCsv.
+                throw new UncheckedIOException(ex);
+            }
+            return current != null;
+        }
+    }
+}
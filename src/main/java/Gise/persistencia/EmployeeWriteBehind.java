@@ -0,0 +1,333 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import Gise.dominio.Employee;
+
+/**
+ * Escritura diferida (write-behind) de modificaciones de empleados.
+ * <p>
+ * {@link #enqueue(Employee)} guarda una copia del empleado en una cola por ID y vuelve de
+ * inmediato. Si el mismo empleado se vuelve a encolar antes de enviarse, la nueva copia
+ * reemplaza a la anterior, así varias ediciones seguidas se convierten en un solo UPDATE. Cada
+ * {@code intervalMillis} (o al llamar a {@link #flush()}) los pendientes se envían juntos con
+ * {@link EmployeeDAO#updateAll(java.util.Collection)}, en una transacción.
+ * <p>
+ * Los envíos nunca se superponen: cada uno toma los pendientes y termina antes de que empiece
+ * el siguiente, por lo que las modificaciones de un mismo empleado llegan a la base de datos en
+ * el orden en que se encolaron. Si un envío falla, sus empleados se descartan y se informan al
+ * {@link Listener}; las ediciones encoladas mientras tanto se envían en el siguiente.
+ * <p>
+ * Las versiones se comprueban igual que en {@code update}: la copia encolada debe tener la
+ * versión leída. Si esa versión ya fue reemplazada por un envío de esta misma cola, se usa la
+ * versión nueva, para que editar otra vez un empleado recién enviado no se confunda con una
+ * modificación de otro usuario.
+ */
+public class EmployeeWriteBehind implements AutoCloseable {
+
+    /**
+     * Recibe el resultado de los envíos automáticos. Se llama desde el hilo de la cola, cuando el
+     * envío ya terminó, así que puede llamar a {@link #flush()} o encolar otras modificaciones.
+     */
+    public interface Listener {
+        /**
+         * Los empleados se guardaron en la base de datos.
+         */
+        default void onFlush(List<Employee> employees) {
+        }
+
+        /**
+         * No se pudo guardar ninguno de los empleados; sus modificaciones se descartaron.
+         */
+        void onFailure(List<Employee> employees, SQLException error);
+    }
+
+    /**
+     * Envía un grupo de empleados a la base de datos.
+     */
+    @FunctionalInterface
+    interface Writer {
+        /**
+         * @return un arreglo alineado con la lista: true si el empleado se actualizó.
+         */
+        boolean[] write(List<Employee> employees) throws SQLException;
+    }
+
+    /**
+     * Versión que asignó un envío de esta cola a un empleado que tenía la versión {@code from}.
+     */
+    private record Rebase(long from, long to) {
+    }
+
+    /**
+     * Cantidad máxima de versiones recordadas. Una versión solo hace falta hasta que la pantalla
+     * vuelve a leer el empleado; al superar el límite se olvidan las más antiguas.
+     */
+    private static final int MAX_REBASES = 1024;
+
+    private final Writer writer;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object queueLock = new Object(); // Protege pending y rebases.
+    private final Map<Integer, Employee> pending = new LinkedHashMap<>(); // Por ID, en orden de llegada.
+    private final Map<Integer, Rebase> rebases = new LinkedHashMap<>() { // Por ID, la más antigua primero.
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Rebase> eldest) {
+            return size() > MAX_REBASES;
+        }
+    };
+    private final Object flushLock = new Object(); // Serializa los envíos.
+    private boolean closed;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * Crea una cola que envía los pendientes a {@link EmployeeDAO} cada {@code intervalMillis}.
+     *
+     * @param listener recibe el resultado de los envíos automáticos (no puede ser null).
+     */
+    public EmployeeWriteBehind(long intervalMillis, Listener listener) {
+        this(employees -> EmployeeDAO.getInstance().updateAll(employees), intervalMillis, listener);
+    }
+
+    EmployeeWriteBehind(Writer writer, long intervalMillis, Listener listener) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("El intervalo debe ser mayor que cero: " + intervalMillis);
+        }
+        this.writer = writer;
+        this.listener = listener;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gise-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushInBackground, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Encola una modificación del empleado. Se guarda una copia, así que el objeto puede seguir
+     * usándose.
+     *
+     * @throws IllegalStateException si la cola ya se cerró.
+     */
+    public void enqueue(Employee employee) {
+        Employee copy = EmployeeDAO.copy(employee);
+        synchronized (queueLock) {
+            if (closed) {
+                throw new IllegalStateException("La escritura diferida ya se cerró.");
+            }
+            Employee previous = pending.get(copy.getId());
+            if (previous != null) {
+                // Las dos ediciones parten de la misma lectura: se conserva la versión de la primera.
+                copy.setVersion(previous.getVersion());
+                coalesced.incrementAndGet();
+            } else {
+                // La versión recordada se usa una sola vez: el envío de esta copia registrará la siguiente.
+                Rebase rebase = rebases.remove(copy.getId());
+                if (rebase != null && rebase.from() == copy.getVersion()) {
+                    copy.setVersion(rebase.to());
+                }
+            }
+            // Reemplazar un valor no cambia el orden del LinkedHashMap: el empleado conserva su turno.
+            pending.put(copy.getId(), copy);
+        }
+        enqueued.incrementAndGet();
+    }
+
+    /**
+     * Devuelve una copia de la modificación pendiente del empleado, o null si no tiene una.
+     * Sirve para mostrar los datos que todavía no llegaron a la base de datos.
+     */
+    public Employee getPending(int id) {
+        synchronized (queueLock) {
+            Employee employee = pending.get(id);
+            return employee == null ? null : EmployeeDAO.copy(employee);
+        }
+    }
+
+    /**
+     * Descarta la modificación pendiente del empleado (por ejemplo, antes de eliminarlo).
+     *
+     * @return true si tenía una modificación pendiente.
+     */
+    public boolean discard(int id) {
+        synchronized (queueLock) {
+            return pending.remove(id) != null;
+        }
+    }
+
+    public int getPendingCount() {
+        synchronized (queueLock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * Cantidad de versiones recordadas para corregir ediciones posteriores.
+     */
+    int getRebaseCount() {
+        synchronized (queueLock) {
+            return rebases.size();
+        }
+    }
+
+    /**
+     * Envía ahora los pendientes, esperando a que termine el envío en curso si lo hay.
+     *
+     * @return los empleados guardados (vacía si no había pendientes).
+     * @throws SQLException si falla el envío (sus modificaciones se descartan) o si alguno de los
+     *                      empleados ya no existe (los demás se guardan igual).
+     */
+    public List<Employee> flush() throws SQLException {
+        List<Employee> missing;
+        List<Employee> batch;
+        synchronized (flushLock) {
+            batch = drain();
+            missing = write(batch);
+        }
+        if (!missing.isEmpty()) {
+            throw missingError(missing);
+        }
+        return batch;
+    }
+
+    /**
+     * Envía los pendientes y detiene el envío automático. Las llamadas siguientes a
+     * {@link #enqueue(Employee)} fallan.
+     *
+     * @throws SQLException si falla el último envío.
+     */
+    @Override
+    public void close() throws SQLException {
+        synchronized (queueLock) {
+            closed = true;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES); // Espera el envío automático en curso.
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Cantidad de modificaciones encoladas.
+     */
+    public long getEnqueued() {
+        return enqueued.get();
+    }
+
+    /**
+     * Cantidad de modificaciones que reemplazaron a otra pendiente del mismo empleado.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Cantidad de empleados guardados en la base de datos.
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    private void flushInBackground() {
+        List<Employee> batch;
+        List<Employee> missing = List.of();
+        SQLException error = null;
+        synchronized (flushLock) {
+            batch = drain();
+            try {
+                missing = write(batch);
+            } catch (SQLException ex) {
+                error = ex;
+            } catch (RuntimeException ex) {
+                // Un error inesperado no debe detener el envío automático.
+                error = new SQLException("Error al guardar los empleados: " + ex.getMessage(), ex);
+            }
+        }
+        // El listener se llama sin flushLock, para que pueda llamar a flush() sin bloquear la cola.
+        if (error != null) {
+            listener.onFailure(batch, error);
+            return;
+        }
+        if (!missing.isEmpty()) {
+            batch.removeAll(missing);
+            listener.onFailure(missing, missingError(missing));
+        }
+        if (!batch.isEmpty()) {
+            listener.onFlush(batch);
+        }
+    }
+
+    /**
+     * Saca de la cola todos los pendientes, en orden de llegada.
+     */
+    private List<Employee> drain() {
+        synchronized (queueLock) {
+            List<Employee> batch = new ArrayList<>(pending.values());
+            pending.clear();
+            return batch;
+        }
+    }
+
+    /**
+     * Envía un grupo de pendientes y registra las versiones nuevas. Debe llamarse con flushLock.
+     *
+     * @return los empleados que no se actualizaron porque ya no existen.
+     */
+    private List<Employee> write(List<Employee> batch) throws SQLException {
+        List<Employee> missing = new ArrayList<>();
+        if (batch.isEmpty()) {
+            return missing;
+        }
+        Map<Integer, Long> readVersions = new HashMap<>();
+        for (Employee employee : batch) {
+            readVersions.put(employee.getId(), employee.getVersion());
+        }
+        boolean[] res = writer.write(batch);
+
+        synchronized (queueLock) {
+            for (int i = 0; i < batch.size(); i++) {
+                Employee employee = batch.get(i);
+                if (!res[i]) {
+                    missing.add(employee);
+                    continue;
+                }
+                long readVersion = readVersions.get(employee.getId());
+                Employee next = pending.get(employee.getId());
+                if (next == null) {
+                    // Se recuerda para la próxima edición, que puede partir de la versión anterior.
+                    rebases.remove(employee.getId());
+                    rebases.put(employee.getId(), new Rebase(readVersion, employee.getVersion()));
+                } else if (next.getVersion() == readVersion) {
+                    // Una edición encolada durante el envío partió de la versión anterior.
+                    next.setVersion(employee.getVersion());
+                }
+            }
+        }
+        written.addAndGet(batch.size() - missing.size());
+        return missing;
+    }
+
+    private static SQLException missingError(List<Employee> missing) {
+        StringBuilder ids = new StringBuilder();
+        for (Employee employee : missing) {
+            ids.append(ids.length() == 0 ? "" : ", ").append(employee.getId());
+        }
+        return new SQLException("No existen los empleados " + ids + "; sus cambios se descartaron.");
+    }
+}
@@ -0,0 +1,159 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caché acotada de entidades por ID, con expulsión LRU y vencimiento por TTL.
+ * <p>
+ * La usan los DAO para responder {@code getById} sin ir a la base de datos cuando la misma
+ * fila se consulta varias veces seguidas (por ejemplo, al seleccionar filas en una tabla).
+ * Cuando se supera el tamaño máximo se descarta la entrada usada hace más tiempo; las entradas
+ * vencidas se descartan al leerlas. Los métodos de escritura de los DAO invalidan las entradas
+ * afectadas. Los objetos se guardan y se devuelven como copias, así que el llamador puede
+ * modificarlos sin alterar la caché. Es segura para uso concurrente.
+ *
+ * @param <T> tipo de la entidad.
+ */
+public class EntityCache<T> {
+
+    /**
+     * Lee una entidad desde la base de datos; devuelve null si no existe.
+     */
+    @FunctionalInterface
+    interface Loader<T> {
+        T load(int id) throws SQLException;
+    }
+
+    /**
+     * Entidad guardada y el momento en que vence.
+     */
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiresAt; // En la escala de System.nanoTime().
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final UnaryOperator<T> copier; // Crea una copia independiente de la entidad.
+    private final LinkedHashMap<Integer, Entry<T>> entries;
+    private long generation; // Aumenta con cada invalidación; protegido por el bloqueo de la caché.
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxSize   cantidad máxima de entidades guardadas (0 para no cachear).
+     * @param ttlMillis tiempo máximo que se sirve una entidad antes de volver a leerla.
+     * @param copier    crea una copia independiente de la entidad.
+     */
+    EntityCache(int maxSize, long ttlMillis, UnaryOperator<T> copier) {
+        if (maxSize < 0 || ttlMillis < 0) {
+            throw new IllegalArgumentException("El tamaño y el TTL de la caché no pueden ser negativos.");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.copier = copier;
+        // accessOrder = true: el recorrido va del menos usado recientemente al más usado.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<T>> eldest) {
+                if (size() > EntityCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una copia de la entidad con el ID indicado, leyéndola con {@code loader} si no
+     * está en la caché o venció. Las entidades inexistentes (null) no se guardan.
+     */
+    T get(int id, Loader<T> loader) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            Entry<T> entry = entries.get(id);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt < 0) {
+                    hits.increment();
+                    return copier.apply(entry.value);
+                }
+                entries.remove(id);
+                expirations.increment();
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        // La consulta se hace fuera del bloqueo para no frenar a los demás hilos.
+        T value = loader.load(id);
+        if (value != null) {
+            synchronized (this) {
+                // Si hubo una escritura durante la consulta, el valor leído podría estar desactualizado.
+                if (loadGeneration == generation && maxSize > 0) {
+                    entries.put(id, new Entry<>(copier.apply(value), System.nanoTime() + ttlNanos));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Descarta la entidad con el ID indicado.
+     */
+    public synchronized void invalidate(int id) {
+        generation++;
+        entries.remove(id);
+    }
+
+    /**
+     * Descarta todas las entidades guardadas.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Cantidad de entidades descartadas por superar el tamaño máximo (LRU).
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Cantidad de entidades descartadas por vencimiento del TTL.
+     */
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+}
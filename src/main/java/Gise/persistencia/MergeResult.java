@@ -0,0 +1,35 @@
+package Gise.persistencia;
+
+/**
+ * Resultado de una fusión de cargos con {@code mergePositions}: cuántos empleados se reasignaron
+ * al cargo destino y cuántos cargos se eliminaron.
+ */
+public final class MergeResult {
+
+    private final int reassigned;
+    private final int deleted;
+
+    MergeResult(int reassigned, int deleted) {
+        this.reassigned = reassigned;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Empleados que pasaron del cargo origen al destino.
+     */
+    public int getReassigned() {
+        return reassigned;
+    }
+
+    /**
+     * Cargos eliminados (el origen, si existía).
+     */
+    public int getDeleted() {
+        return deleted;
+    }
+
+    @Override
+    public String toString() {
+        return "reasignados=" + reassigned + ", eliminados=" + deleted;
+    }
+}
@@ -0,0 +1,37 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+
+/**
+ * Indica que una fila fue modificada por otro usuario desde que se leyó: la versión
+ * ({@code rowversion}) enviada en la actualización ya no coincide con la de la base de datos.
+ * Hay que volver a leer la fila y repetir los cambios sobre los datos actuales.
+ */
+public class OptimisticLockException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String table;
+    private final int id;
+
+    public OptimisticLockException(String table, int id) {
+        super("El registro " + id + " de " + table + " fue modificado por otro usuario. "
+                + "Vuelva a cargarlo e intente de nuevo.", "40001");
+        this.table = table;
+        this.id = id;
+    }
+
+    /**
+     * Tabla de la fila en conflicto.
+     */
+    public String getTable() {
+        return table;
+    }
+
+    /**
+     * ID de la fila en conflicto.
+     */
+    public int getId() {
+        return id;
+    }
+}
@@ -0,0 +1,94 @@
+package Gise.persistencia;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Página de resultados de una búsqueda paginada por clave (keyset / seek).
+ * <p>
+ * En lugar de usar OFFSET, cada página recuerda la clave ordenada de su última fila
+ * (por ejemplo nombre e id) en un token opaco. La página siguiente se pide con ese token y la
+ * consulta continúa justo después de esa clave, por lo que su costo no crece con el número de página.
+ *
+ * @param <T> tipo de los elementos de la página.
+ */
+public class Page<T> {
+
+    private final List<T> items; // Elementos de esta página, en el orden de la consulta.
+    private final String nextToken; // Token para pedir la página siguiente, o null si es la última.
+
+    Page(List<T> items, String nextToken) {
+        this.items = items;
+        this.nextToken = nextToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Devuelve el token para pedir la página siguiente, o null si ya no hay más resultados.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public boolean hasMore() {
+        return nextToken != null;
+    }
+
+    /**
+     * Arma una página a partir de las filas leídas. Las consultas piden {@code pageSize + 1} filas:
+     * si llegó la fila extra, se descarta y significa que hay una página siguiente.
+     */
+    static <T> Page<T> of(List<T> rows, int pageSize, Function<T, String> keyValue, ToIntFunction<T> id) {
+        String nextToken = null;
+        if (rows.size() > pageSize) {
+            rows.subList(pageSize, rows.size()).clear();
+            T last = rows.get(pageSize - 1);
+            nextToken = encodeToken(keyValue.apply(last), id.applyAsInt(last));
+        }
+        return new Page<>(rows, nextToken);
+    }
+
+    /**
+     * Valida el tamaño de página pedido por el llamador.
+     */
+    static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que cero: " + pageSize);
+        }
+    }
+
+    /**
+     * Clave de la última fila de una página: el valor de la columna de orden y el id que desempata.
+     */
+    record Key(String value, int id) {
+    }
+
+    /**
+     * Codifica la clave de la última fila como un token opaco para el llamador.
+     */
+    static String encodeToken(String value, int id) {
+        String raw = id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token generado por {@link #encodeToken(String, int)}.
+     *
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    static Key decodeToken(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new Key(raw.substring(separator + 1), Integer.parseInt(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Token de página inválido: " + token, ex);
+        }
+    }
+}
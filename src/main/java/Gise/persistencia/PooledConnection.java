@@ -0,0 +1,62 @@
+package Gise.persistencia;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Envoltura de una conexión física administrada por {@link ConnectionPool}.
+ * Guarda los tiempos necesarios para decidir si la conexión debe validarse,
+ * expulsarse por inactividad o reemplazarse por haber superado su tiempo de vida.
+ */
+class PooledConnection {
+
+    private final Connection connection; // Conexión física real con SQL Server.
+    private final long createdAt; // Momento (System.nanoTime) en que se abrió la conexión.
+    private volatile long lastUsedAt; // Último momento en que la conexión fue prestada o devuelta.
+    private StatementCache statementCache; // Sentencias preparadas sobre esta conexión (se crea al primer uso).
+
+    PooledConnection(Connection connection) {
+        this.connection = connection;
+        this.createdAt = System.nanoTime();
+        this.lastUsedAt = this.createdAt;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    long getCreatedAt() {
+        return createdAt;
+    }
+
+    long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    void setStatementCache(StatementCache statementCache) {
+        this.statementCache = statementCache;
+    }
+
+    void touch() {
+        this.lastUsedAt = System.nanoTime();
+    }
+
+    /**
+     * Cierra la conexión física ignorando los errores, ya que en este punto
+     * la conexión se está descartando y no hay nada más que hacer con ella.
+     */
+    void closeQuietly() {
+        if (statementCache != null) {
+            statementCache.clear();
+        }
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // La conexión se descarta de todas formas.
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import Gise.dominio.Position;
+
+/**
+ * Caché de lectura para los cargos.
+ * <p>
+ * Los cargos cambian muy poco y se leen constantemente (combos y tablas de las vistas), así que
+ * la caché guarda una copia completa de la tabla Positions: la primera lectura la carga con una
+ * sola consulta y las siguientes se responden desde memoria hasta que vence el TTL o algún
+ * método de escritura del DAO la invalida. Los objetos que se devuelven son copias, por lo que
+ * el llamador puede modificarlos sin alterar la caché.
+ */
+public class PositionCache {
+
+    /**
+     * Carga todos los cargos desde la base de datos, ordenados por título.
+     */
+    @FunctionalInterface
+    interface Loader {
+        List<Position> loadAll() throws SQLException;
+    }
+
+    /**
+     * Copia de la tabla en un momento dado.
+     */
+    private static final class Snapshot {
+        private final List<Position> all; // En el orden de la consulta (por título).
+        private final Map<Integer, Position> byId;
+        private final long loadedAt; // System.nanoTime() al momento de la carga.
+
+        private Snapshot(List<Position> all, long loadedAt) {
+            this.all = all;
+            this.byId = new HashMap<>(all.size() * 2);
+            for (Position position : all) {
+                byId.put(position.getId(), position);
+            }
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final Object loadLock = new Object(); // Evita que varios hilos carguen la tabla a la vez.
+    private final AtomicLong generation = new AtomicLong(); // Aumenta con cada invalidación.
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttlMillis tiempo máximo que se usa una copia antes de volver a leerla (0 para no cachear).
+     */
+    PositionCache(long ttlMillis) {
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("El TTL no puede ser negativo: " + ttlMillis);
+        }
+        this.ttlNanos = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Devuelve una copia del cargo con el ID indicado, o null si no existe.
+     */
+    Position getById(int id, Loader loader) throws SQLException {
+        Position position = current(loader).byId.get(id);
+        return position == null ? null : copy(position);
+    }
+
+    /**
+     * Devuelve una copia de todos los cargos, ordenados por título.
+     */
+    ArrayList<Position> getAll(Loader loader) throws SQLException {
+        List<Position> all = current(loader).all;
+        ArrayList<Position> records = new ArrayList<>(all.size());
+        for (Position position : all) {
+            records.add(copy(position));
+        }
+        return records;
+    }
+
+    /**
+     * Descarta la copia actual; la próxima lectura vuelve a la base de datos.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        evict();
+    }
+
+    private Snapshot current(Loader loader) throws SQLException {
+        Snapshot s = snapshot;
+        if (isFresh(s)) {
+            hits.increment();
+            return s;
+        }
+        synchronized (loadLock) {
+            s = snapshot;
+            if (isFresh(s)) {
+                hits.increment(); // Otro hilo la cargó mientras se esperaba el bloqueo.
+                return s;
+            }
+            misses.increment();
+            if (s != null) {
+                evict(); // Venció el TTL.
+            }
+            long loadGeneration = generation.get();
+            Snapshot fresh = new Snapshot(Collections.unmodifiableList(loader.loadAll()), System.nanoTime());
+            // Si hubo una escritura durante la carga, la copia podría estar desactualizada:
+            // se usa para esta lectura, pero no se guarda.
+            if (loadGeneration == generation.get()) {
+                snapshot = fresh;
+            }
+            return fresh;
+        }
+    }
+
+    private boolean isFresh(Snapshot s) {
+        return s != null && System.nanoTime() - s.loadedAt < ttlNanos;
+    }
+
+    private void evict() {
+        Snapshot old = snapshot;
+        if (old != null) {
+            snapshot = null;
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Copia un cargo sin leer su descripción: si la copia guardada no la tiene, cada copia
+     * devuelta la lee por su cuenta al pedirla.
+     */
+    private static Position copy(Position position) {
+        return new Position(position);
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Cantidad de copias descartadas, por vencimiento del TTL o por invalidación.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRatio() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+}
@@ -1,31 +1,80 @@
 package Gise.persistencia;
 
+import java.io.Reader;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import Gise.dominio.Position;
+import Gise.dominio.PositionTitle;
 
 public class PositionDAO {
     // Manejador de conexión a la base de datos
-    private ConnectionManager conn;
+    private final ConnectionManager conn;
+
+    // Instancia compartida: el DAO no guarda estado, así que puede usarse desde varios hilos
+    private static PositionDAO instance;
+
+    /**
+     * Tiempo máximo (en milisegundos) que se sirven los cargos desde la caché antes de volver a
+     * leerlos. Se puede ajustar con {@code -Dgise.positionCache.ttlMillis=...}.
+     */
+    private static final long CACHE_TTL_MILLIS = Long.getLong("gise.positionCache.ttlMillis", 300_000L);
+
+    // Caché compartida por todas las instancias del DAO, para que cualquier escritura la invalide
+    private static final PositionCache cache = new PositionCache(CACHE_TTL_MILLIS);
+
+    /**
+     * Columnas de las consultas de listas: en lugar de la descripción (TEXT) se lee solo su
+     * comienzo, con un carácter más que la descripción corta para saber si está completa.
+     * Ver {@link #mapList(ResultSet)}. El servidor igual accede al LOB de cada fila para recortarlo;
+     * lo que se evita es enviar y guardar en memoria la descripción completa.
+     */
+    private static final String LIST_COLUMNS = "id, title, SUBSTRING(description, 1, "
+            + (Position.SHORT_DESCRIPTION_LENGTH + 1) + "), CAST(version AS BIGINT), externalKey";
 
     // Constructor: inicializa la conexión con la base de datos
     public PositionDAO(){
         conn = ConnectionManager.getInstance();
     }
 
+    /**
+     * Devuelve la instancia compartida del DAO.
+     */
+    public static synchronized PositionDAO getInstance() {
+        if (instance == null) {
+            instance = new PositionDAO();
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve la caché de cargos, para consultar sus estadísticas o invalidarla.
+     */
+    public PositionCache getCache() {
+        return cache;
+    }
+
     /**
      * Crea un nuevo cargo en la base de datos y retorna el objeto creado.
      */
     public Position create(Position position) throws SQLException {
         Position res = null;
-        String sql = "INSERT INTO Positions (title, description) VALUES (?, ?)";
+        String sql = "INSERT INTO Positions (title, description, externalKey) VALUES (?, ?, ?)";
+        loadDescriptions(List.of(position));
 
-        try (PreparedStatement ps = conn.connect().prepareStatement(sql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
+        // La inserción y la lectura del registro creado comparten la misma conexión y transacción
+        try (Session session = conn.beginSession();
+             PreparedStatement ps = session.getConnection().prepareStatement(sql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, position.getTitle());
             ps.setString(2, position.getDescription());
+            ps.setString(3, position.getExternalKey());
 
             int affectedRows = ps.executeUpdate();
 
@@ -33,36 +82,66 @@ public class PositionDAO {
                 try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         int idGenerado = generatedKeys.getInt(1);
+                        invalidateCache();
                         res = getById(idGenerado);
                     } else {
                         throw new SQLException("Creating position failed, no ID obtained.");
                     }
                 }
             }
+            session.commit();
         } catch (SQLException ex) {
             throw new SQLException("Error al crear el cargo: " + ex.getMessage(), ex);
-        } finally {
-            conn.disconnect();
         }
         return res;
     }
 
     /**
-     * Obtiene un cargo por su ID.
+     * Crea varios cargos en una sola transacción, usando lotes del tamaño por defecto.
+     */
+    public List<Position> createAll(List<Position> positions) throws SQLException {
+        return createAll(positions, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Crea varios cargos en una sola transacción, enviando una sentencia por lote.
+     * A cada cargo se le asigna el ID generado y se devuelve la misma lista.
+     */
+    public List<Position> createAll(List<Position> positions, int batchSize) throws SQLException {
+        loadDescriptions(positions);
+        try (Session session = conn.beginSession()) {
+            SqlBatch.insertAll(session.getConnection(), "Positions",
+                    new String[]{"title", "description", "externalKey"}, positions, batchSize,
+                    (ps, i, position) -> {
+                        ps.setString(i, position.getTitle());
+                        ps.setString(i + 1, position.getDescription());
+                        ps.setString(i + 2, position.getExternalKey());
+                    },
+                    Position::setId);
+            invalidateCache();
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al crear los cargos: " + ex.getMessage(), ex);
+        }
+        return positions;
+    }
+
+    /**
+     * Obtiene un cargo por su ID. Fuera de una sesión se responde desde la caché de cargos.
      */
     public Position getById(int id) throws SQLException {
+        if (conn.currentSession() == null) {
+            return cache.getById(id, this::loadAll);
+        }
         Position position = null;
-        String sql = "SELECT id, title, description FROM Positions WHERE id = ?";
+        String sql = "SELECT id, title, description, CAST(version AS BIGINT), externalKey FROM Positions WHERE id = ?";
 
-        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    position = new Position();
-                    position.setId(rs.getInt(1));
-                    position.setTitle(rs.getString(2));
-                    position.setDescription(rs.getString(3));
+                    position = map(rs);
                 }
             }
         } catch (SQLException ex) {
@@ -75,17 +154,47 @@ public class PositionDAO {
 
     /**
      * Actualiza la información de un cargo en la base de datos.
+     * <p>
+     * Si el cargo tiene versión (se leyó de la base de datos), solo se actualiza si nadie lo
+     * modificó desde entonces; al actualizarlo se le asigna la nueva versión. Con versión 0 se
+     * actualiza sin comprobarla.
+     *
+     * @return true si se actualizó, false si el cargo no existe.
+     * @throws OptimisticLockException si otro usuario modificó el cargo desde que se leyó.
      */
     public boolean update(Position position) throws SQLException {
         boolean res = false;
-        String sql = "UPDATE Positions SET title = ?, description = ? WHERE id = ?";
+        // Si la descripción no se leyó (cargo de una consulta de lista), se conserva la guardada.
+        boolean withDescription = position.isDescriptionLoaded();
+        String sql = "UPDATE Positions SET title = ?" + (withDescription ? ", description = ?" : "") +
+                " OUTPUT CAST(INSERTED.version AS BIGINT) WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
 
-        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
-            ps.setString(1, position.getTitle());
-            ps.setString(2, position.getDescription());
-            ps.setInt(3, position.getId());
+        try {
+            Connection connection = conn.connect();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                int i = 1;
+                ps.setString(i++, position.getTitle());
+                if (withDescription) {
+                    ps.setString(i++, position.getDescription());
+                }
+                ps.setInt(i++, position.getId());
+                ps.setLong(i++, position.getVersion());
+                ps.setLong(i, position.getVersion());
 
-            res = ps.executeUpdate() > 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        position.setVersion(rs.getLong(1));
+                        res = true;
+                    }
+                }
+                invalidateCache();
+                if (!res && position.getVersion() != 0 && !SqlBatch.readVersions(
+                        connection, "Positions", new int[]{position.getId()}, 1).isEmpty()) {
+                    throw new OptimisticLockException("Positions", position.getId());
+                }
+            }
+        } catch (OptimisticLockException ex) {
+            throw ex;
         } catch (SQLException ex) {
             throw new SQLException("Error al modificar el cargo: " + ex.getMessage(), ex);
         } finally {
@@ -99,11 +208,13 @@ public class PositionDAO {
      */
     public boolean delete(Position position) throws SQLException {
         boolean res = false;
-        String sql = "DELETE FROM Positions WHERE id = ?";
+        // La marca en DeletedRows permite a changesSince informar la eliminación
+        String sql = "DELETE FROM Positions OUTPUT 'Positions', DELETED.id INTO DeletedRows (tableName, id) WHERE id = ?";
 
         try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
             ps.setInt(1, position.getId());
             res = ps.executeUpdate() > 0;
+            invalidateCache();
         } catch (SQLException ex) {
             throw new SQLException("Error al eliminar el cargo: " + ex.getMessage(), ex);
         } finally {
@@ -113,21 +224,212 @@ public class PositionDAO {
     }
 
     /**
-     * Obtiene todos los cargos disponibles en la base de datos.
+     * Actualiza varios cargos en una sola transacción usando lotes JDBC.
+     *
+     * @return un arreglo alineado con la colección: true si el cargo fue actualizado.
+     */
+    public boolean[] updateAll(Collection<Position> positions) throws SQLException {
+        return updateAll(positions, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Actualiza varios cargos en una sola transacción, enviando {@code batchSize} filas por lote.
+     * Las versiones se comprueban igual que en {@link #update(Position)}: si algún cargo fue
+     * modificado por otro usuario no se actualiza ninguno.
+     *
+     * @return un arreglo alineado con la colección: true si el cargo fue actualizado.
+     * @throws OptimisticLockException si otro usuario modificó alguno de los cargos.
+     */
+    public boolean[] updateAll(Collection<Position> positions, int batchSize) throws SQLException {
+        boolean[] res;
+        Map<Integer, Long> versions;
+
+        try (Session session = conn.beginSession()) {
+            res = executeUpdates(session.getConnection(), positions, batchSize);
+            invalidateCache();
+            versions = SqlBatch.checkVersions(session.getConnection(), "Positions", positions, res,
+                    Position::getId, Position::getVersion, batchSize);
+            session.commit();
+        } catch (OptimisticLockException ex) {
+            throw ex;
+        } catch (SQLException ex) {
+            throw new SQLException("Error al modificar los cargos: " + ex.getMessage(), ex);
+        }
+        int i = 0;
+        for (Position position : positions) {
+            if (res[i++]) {
+                position.setVersion(versions.get(position.getId()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Elimina los cargos con los IDs indicados en una sola transacción.
+     *
+     * @return un arreglo alineado con los IDs: true si el cargo existía y fue eliminado.
+     */
+    public boolean[] deleteByIds(int[] ids) throws SQLException {
+        boolean[] res;
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.deleteByIds(session.getConnection(), "Positions", ids, SqlBatch.DEFAULT_BATCH_SIZE);
+            invalidateCache();
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al eliminar los cargos: " + ex.getMessage(), ex);
+        }
+        return res;
+    }
+
+    /**
+     * Fusiona un cargo en otro en una sola transacción: reasigna al cargo destino todos los
+     * empleados del cargo origen con una única sentencia en el servidor y elimina el cargo origen.
+     * <p>
+     * El cargo origen se bloquea en forma exclusiva antes de reasignar, para que otros usuarios
+     * no le asignen empleados nuevos hasta que termine la fusión, y el destino se bloquea para
+     * que no se elimine mientras tanto. Como todo ocurre en una transacción, si aun así la
+     * eliminación del origen fallara por la clave foránea, no queda ningún empleado reasignado.
+     *
+     * Los empleados se reasignan sin devolver sus IDs; por eso la caché de empleados se descarta
+     * completa en lugar de uno por uno.
+     *
+     * @return cuántos empleados se reasignaron y cuántos cargos se eliminaron.
+     * @throws IllegalArgumentException si el origen y el destino son el mismo cargo.
+     * @throws SQLException             si alguno de los cargos no existe (no se modifica nada).
+     */
+    public MergeResult mergePositions(int sourceId, int targetId) throws SQLException {
+        if (sourceId == targetId) {
+            throw new IllegalArgumentException("El cargo origen y el destino deben ser distintos: " + sourceId);
+        }
+        String lockSql = "SELECT (SELECT COUNT(*) FROM Positions WITH (XLOCK, HOLDLOCK) WHERE id = ?), " +
+                "(SELECT COUNT(*) FROM Positions WITH (UPDLOCK, HOLDLOCK) WHERE id = ?)";
+        String reassignSql = "UPDATE Employees SET positionId = ? WHERE positionId = ?";
+        String deleteSql = "DELETE FROM Positions OUTPUT 'Positions', DELETED.id INTO DeletedRows (tableName, id) WHERE id = ?";
+        int reassigned;
+        int deleted;
+
+        try (Session session = conn.beginSession()) {
+            Connection connection = session.getConnection();
+            try (PreparedStatement ps = connection.prepareStatement(lockSql)) {
+                ps.setInt(1, sourceId);
+                ps.setInt(2, targetId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    if (rs.getInt(1) == 0) {
+                        throw new SQLException("El cargo " + sourceId + " no existe.");
+                    }
+                    if (rs.getInt(2) == 0) {
+                        throw new SQLException("El cargo " + targetId + " no existe.");
+                    }
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(reassignSql)) {
+                ps.setInt(1, targetId);
+                ps.setInt(2, sourceId);
+                reassigned = ps.executeUpdate();
+            }
+            try (PreparedStatement ps = connection.prepareStatement(deleteSql)) {
+                ps.setInt(1, sourceId);
+                deleted = ps.executeUpdate();
+            }
+            EmployeeDAO.getInstance().invalidateAllCache();
+            invalidateCache();
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al fusionar los cargos: " + ex.getMessage(), ex);
+        }
+        return new MergeResult(reassigned, deleted);
+    }
+
+    /**
+     * Sincroniza cargos por su clave externa, usando lotes del tamaño por defecto.
+     */
+    public UpsertResult upsertAll(List<Position> positions) throws SQLException {
+        return upsertAll(positions, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Sincroniza cargos por su clave externa en una sola transacción: los que no existen se
+     * insertan y los existentes se actualizan solo si cambió su título o su descripción, con
+     * una sentencia MERGE por lote. A los cargos insertados o actualizados se les asigna su ID
+     * y su nueva versión.
+     *
+     * @return cuántos cargos se insertaron, se actualizaron y quedaron sin cambios.
+     * @throws IllegalArgumentException si algún cargo no tiene clave externa o si se repite.
+     */
+    public UpsertResult upsertAll(List<Position> positions, int batchSize) throws SQLException {
+        SqlBatch.checkExternalKeys(positions, Position::getExternalKey);
+        loadDescriptions(positions);
+        UpsertResult res;
+
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.upsertAll(session.getConnection(), "Positions",
+                    new String[]{"externalKey", "title", "description"},
+                    new String[]{"VARCHAR(50)", "VARCHAR(100)", "VARCHAR(MAX)"},
+                    positions, batchSize,
+                    (ps, i, position) -> {
+                        ps.setString(i, position.getExternalKey());
+                        ps.setString(i + 1, position.getTitle());
+                        ps.setString(i + 2, position.getDescription());
+                    },
+                    (position, id, version) -> {
+                        position.setId(id);
+                        position.setVersion(version);
+                    });
+            invalidateCache();
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al sincronizar los cargos: " + ex.getMessage(), ex);
+        }
+        return res;
+    }
+
+    /**
+     * Obtiene todos los cargos disponibles en la base de datos, ordenados por título.
+     * Fuera de una sesión se responde desde la caché de cargos.
      */
     public ArrayList<Position> getAll() throws SQLException {
+        if (conn.currentSession() == null) {
+            return cache.getAll(this::loadAll);
+        }
+        return loadAll();
+    }
+
+    /**
+     * Lista el ID y el título de todos los cargos, ordenados por título, para llenar listas y
+     * ComboBox. A diferencia de {@link #getAll()} no lee la descripción (TEXT), que es la mayor
+     * parte de cada fila.
+     */
+    public List<PositionTitle> listTitles() throws SQLException {
+        List<PositionTitle> records = new ArrayList<>();
+        String sql = "SELECT id, title FROM Positions ORDER BY title";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+
+            while (rs.next()) {
+                records.add(new PositionTitle(rs.getInt(1), rs.getString(2)));
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al listar los títulos de los cargos: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return records;
+    }
+
+    /**
+     * Lee todos los cargos desde la base de datos, sin pasar por la caché.
+     */
+    private ArrayList<Position> loadAll() throws SQLException {
         ArrayList<Position> records = new ArrayList<>();
-        String sql = "SELECT id, title, description FROM Positions ORDER BY title";
+        String sql = "SELECT " + LIST_COLUMNS + " FROM Positions ORDER BY title";
 
-        try (PreparedStatement ps = conn.connect().prepareStatement(sql);
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                Position position = new Position();
-                position.setId(rs.getInt(1));
-                position.setTitle(rs.getString(2));
-                position.setDescription(rs.getString(3));
-                records.add(position);
+                records.add(mapList(rs));
             }
         } catch (SQLException ex) {
             throw new SQLException("Error al obtener todos los cargos: " + ex.getMessage(), ex);
@@ -137,23 +439,153 @@ public class PositionDAO {
         return records;
     }
 
+    /**
+     * Busca cargos cuyo título contenga la cadena indicada, de a una página por vez.
+     * Los resultados se ordenan por título e id y se paginan por clave: cada página continúa
+     * después de la última fila de la anterior, sin recorrer las filas ya devueltas.
+     *
+     * @param title     texto a buscar (cadena vacía para todos).
+     * @param pageSize  cantidad máxima de elementos de la página.
+     * @param pageToken token devuelto por la página anterior, o null para pedir la primera.
+     */
+    public Page<Position> searchPage(String title, int pageSize, String pageToken) throws SQLException {
+        Page.checkPageSize(pageSize);
+        List<Position> records = new ArrayList<>();
+        String sql = pageToken == null
+                ? "SELECT TOP (?) " + LIST_COLUMNS + " FROM Positions WHERE title LIKE ? ORDER BY title, id"
+                : "SELECT TOP (?) " + LIST_COLUMNS + " FROM Positions WHERE title LIKE ? AND (title > ? OR (title = ? AND id > ?)) ORDER BY title, id";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1); // Se pide una fila extra para saber si hay más páginas
+            ps.setString(2, "%" + title + "%");
+            if (pageToken != null) {
+                Page.Key key = Page.decodeToken(pageToken);
+                ps.setString(3, key.value());
+                ps.setString(4, key.value());
+                ps.setInt(5, key.id());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapList(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al buscar cargos: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return Page.of(records, pageSize, Position::getTitle, Position::getId);
+    }
+
+    /**
+     * Devuelve un token que representa el estado actual de los cargos, para pedir más tarde con
+     * {@link #changesSince(String)} solo lo que cambió desde ahora. El token se lee en la base
+     * principal y sin caché, así que las filas que se sigan con él también deben leerse allí; la
+     * forma más simple es {@code changesSince(null)}, que devuelve todos los cargos con su token.
+     */
+    public String currentChangeToken() throws SQLException {
+        try {
+            return ChangeSet.encodeToken(ChangeSet.committedVersion(conn.connect()));
+        } catch (SQLException ex) {
+            throw new SQLException("Error al obtener el token de cambios: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Devuelve los cargos insertados, modificados o eliminados desde el token indicado, ordenados
+     * por título. Se consulta siempre la base principal, porque los tokens se comparan con sus
+     * versiones.
+     *
+     * @param token token de {@link #currentChangeToken()} o de un ChangeSet anterior, o null
+     *              para obtener todos los cargos (sin eliminados) junto con el token que los sigue.
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public ChangeSet<Position> changesSince(String token) throws SQLException {
+        long since = ChangeSet.decodeToken(token);
+        List<Position> records = new ArrayList<>();
+        String sql = "SELECT " + LIST_COLUMNS + " FROM Positions " +
+                "WHERE version > CAST(? AS BINARY(8)) AND version <= CAST(? AS BINARY(8)) ORDER BY title, id";
+
+        try {
+            Connection connection = conn.connect();
+            // El límite se lee antes que las filas: lo que se confirme después queda para la próxima consulta
+            long until = ChangeSet.committedVersion(connection);
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setLong(1, since);
+                ps.setLong(2, until);
+
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        records.add(mapList(rs));
+                    }
+                }
+            }
+            List<Integer> deleted = ChangeSet.deletedIds(connection, "Positions", since, until);
+            return new ChangeSet<>(records, deleted, ChangeSet.encodeToken(until));
+        } catch (SQLException ex) {
+            throw new SQLException("Error al obtener los cambios de cargos: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Lee la descripción completa de un cargo.
+     *
+     * @return la descripción, o null si el cargo no existe o no tiene descripción.
+     */
+    public String loadDescription(int positionId) throws SQLException {
+        String description = null;
+        String sql = "SELECT description FROM Positions WHERE id = ?";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, positionId);
+
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    description = rs.getString(1);
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al leer la descripción del cargo: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return description;
+    }
+
+    /**
+     * Abre la descripción de un cargo como un Reader que la lee del servidor a medida que se
+     * consume, sin cargarla completa en memoria. El Reader usa una conexión exclusiva del pool
+     * hasta cerrarlo, por lo que debe usarse con try-with-resources.
+     *
+     * @return el Reader, o null si el cargo no existe o no tiene descripción.
+     */
+    public Reader openDescription(int positionId) throws SQLException {
+        String sql = "SELECT description FROM Positions WHERE id = ?";
+        try {
+            return ResultStreams.openReader(conn, sql, ps -> ps.setInt(1, positionId));
+        } catch (SQLException ex) {
+            throw new SQLException("Error al leer la descripción del cargo: " + ex.getMessage(), ex);
+        }
+    }
+
     /**
      * Busca cargos cuyo título contenga la cadena ingresada.
      */
     public ArrayList<Position> search(String title) throws SQLException {
         ArrayList<Position> records = new ArrayList<>();
-        String sql = "SELECT id, title, description FROM Positions WHERE title LIKE ?";
+        String sql = "SELECT " + LIST_COLUMNS + " FROM Positions WHERE title LIKE ?";
 
-        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
             ps.setString(1, "%" + title + "%");
 
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    Position position = new Position();
-                    position.setId(rs.getInt(1));
-                    position.setTitle(rs.getString(2));
-                    position.setDescription(rs.getString(3));
-                    records.add(position);
+                    records.add(mapList(rs));
                 }
             }
         } catch (SQLException ex) {
@@ -163,4 +595,133 @@ public class PositionDAO {
         }
         return records;
     }
+
+    /**
+     * Recorre los cargos cuyo título contenga la cadena indicada sin cargarlos todos en memoria.
+     * El Stream debe cerrarse (try-with-resources) para devolver la conexión al pool.
+     */
+    public Stream<Position> stream(String title) throws SQLException {
+        return stream(title, ResultStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Igual que {@link #stream(String)}, indicando cuántas filas se piden al servidor por viaje.
+     */
+    public Stream<Position> stream(String title, int fetchSize) throws SQLException {
+        String sql = "SELECT id, title, description, CAST(version AS BIGINT), externalKey FROM Positions WHERE title LIKE ? ORDER BY id";
+        try {
+            return ResultStreams.open(conn, sql, fetchSize, ps -> ps.setString(1, "%" + title + "%"), this::map);
+        } catch (SQLException ex) {
+            throw new SQLException("Error al recorrer cargos: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Descarta la caché después de una escritura. Si la escritura forma parte de una sesión,
+     * la caché se descarta otra vez al terminar la transacción, porque hasta entonces otros
+     * hilos pueden haberla vuelto a cargar con los datos anteriores.
+     * También registra la escritura para que las próximas lecturas no vayan a la réplica.
+     */
+    private void invalidateCache() {
+        conn.markWrite();
+        cache.invalidate();
+        Session session = conn.currentSession();
+        if (session != null) {
+            session.afterCompletion(cache::invalidate);
+        }
+    }
+
+    /**
+     * Ejecuta los UPDATE de {@link #updateAll(Collection, int)}. Los cargos cuya descripción no se
+     * leyó se actualizan con otra sentencia que no la incluye, así conservan la guardada y el lote
+     * no lee la descripción de cada fila.
+     *
+     * @return un arreglo alineado con la colección: true si el cargo fue actualizado.
+     */
+    private static boolean[] executeUpdates(Connection connection, Collection<Position> positions, int batchSize) throws SQLException {
+        String where = " WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
+        List<Position> loaded = new ArrayList<>();
+        List<Position> lazy = new ArrayList<>();
+        for (Position position : positions) {
+            (position.isDescriptionLoaded() ? loaded : lazy).add(position);
+        }
+
+        boolean[] loadedRes = loaded.isEmpty() ? new boolean[0] : SqlBatch.executeAll(connection,
+                "UPDATE Positions SET title = ?, description = ?" + where, loaded, batchSize, (ps, i, position) -> {
+                    ps.setString(i, position.getTitle());
+                    ps.setString(i + 1, position.getDescription());
+                    ps.setInt(i + 2, position.getId());
+                    ps.setLong(i + 3, position.getVersion());
+                    ps.setLong(i + 4, position.getVersion());
+                });
+        boolean[] lazyRes = lazy.isEmpty() ? new boolean[0] : SqlBatch.executeAll(connection,
+                "UPDATE Positions SET title = ?" + where, lazy, batchSize, (ps, i, position) -> {
+                    ps.setString(i, position.getTitle());
+                    ps.setInt(i + 1, position.getId());
+                    ps.setLong(i + 2, position.getVersion());
+                    ps.setLong(i + 3, position.getVersion());
+                });
+
+        boolean[] res = new boolean[positions.size()];
+        int i = 0;
+        int nextLoaded = 0;
+        int nextLazy = 0;
+        for (Position position : positions) {
+            res[i++] = position.isDescriptionLoaded() ? loadedRes[nextLoaded++] : lazyRes[nextLazy++];
+        }
+        return res;
+    }
+
+    /**
+     * Lee las descripciones que todavía no se leyeron, antes de abrir la transacción de un INSERT
+     * o un MERGE: esas sentencias necesitan el valor completo, y una falla al leerlo no debe
+     * ocurrir con el lote a medio armar.
+     */
+    private static void loadDescriptions(Collection<Position> positions) throws SQLException {
+        for (Position position : positions) {
+            if (!position.isDescriptionLoaded()) {
+                try {
+                    position.getDescription();
+                } catch (RuntimeException ex) {
+                    if (ex.getCause() instanceof SQLException) {
+                        throw (SQLException) ex.getCause();
+                    }
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Construye un Position a partir de la fila actual (id, title, description, version, externalKey).
+     */
+    private Position map(ResultSet rs) throws SQLException {
+        Position position = new Position();
+        position.setId(rs.getInt(1));
+        position.setTitle(rs.getString(2));
+        position.setDescription(rs.getString(3));
+        position.setVersion(rs.getLong(4));
+        position.setExternalKey(rs.getString(5));
+        return position;
+    }
+
+    /**
+     * Construye un Position a partir de una fila de {@link #LIST_COLUMNS}. Si la descripción entra
+     * completa en el comienzo leído se asigna directamente; si no, se leerá recién al pedirla.
+     */
+    private Position mapList(ResultSet rs) throws SQLException {
+        Position position = map(rs);
+        String start = position.getDescription();
+        if (start != null && start.length() > Position.SHORT_DESCRIPTION_LENGTH) {
+            int id = position.getId();
+            position.setDescriptionLoader(start, () -> {
+                try {
+                    return loadDescription(id);
+                } catch (SQLException ex) {
+                    throw new RuntimeException(ex.getMessage(), ex);
+                }
+            });
+        }
+        return position;
+    }
 }
@@ -0,0 +1,173 @@
+package Gise.persistencia;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plazo máximo y cancelación para las consultas que los DAO ejecutan en el hilo actual.
+ * <p>
+ * Mientras el ámbito está abierto, cada sentencia que se crea sobre una conexión del pool recibe
+ * como {@code setQueryTimeout} el tiempo que le queda al plazo, así que cualquier método de los DAO
+ * respeta el plazo sin cambiar su firma. Además, {@link #cancel()} (que puede llamarse desde otro
+ * hilo) ejecuta {@link Statement#cancel()} sobre las sentencias en curso, para que una búsqueda
+ * reemplazada por otra más reciente deje de consumir tiempo del servidor:
+ * <pre>
+ * try (QueryScope scope = QueryScope.open(Duration.ofSeconds(5))) {
+ *     return userDAO.search(texto);
+ * }
+ * </pre>
+ * Los ámbitos anidados usan el plazo más corto entre el propio y el del ámbito exterior, y
+ * cancelar el exterior cancela también las sentencias de los interiores.
+ */
+public final class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> current = new ThreadLocal<>();
+
+    private final QueryScope parent; // Ámbito exterior (null si es el más externo).
+    private final Thread owner; // Hilo en el que se abrió el ámbito.
+    private final boolean limited; // Si el ámbito (o alguno exterior) tiene plazo.
+    private final long deadline; // En la escala de System.nanoTime(); solo vale si limited.
+    private final List<Statement> statements = new ArrayList<>(); // Sentencias que se cancelan con cancel().
+    private volatile boolean cancelled;
+    private boolean closed;
+
+    private QueryScope(QueryScope parent, boolean limited, long deadline) {
+        this.parent = parent;
+        this.owner = Thread.currentThread();
+        if (parent != null && parent.limited && (!limited || parent.deadline - deadline < 0)) {
+            // El plazo del ámbito exterior es más corto.
+            this.limited = true;
+            this.deadline = parent.deadline;
+        } else {
+            this.limited = limited;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Abre un ámbito con el plazo indicado en el hilo actual. Debe cerrarse con try-with-resources.
+     */
+    public static QueryScope open(Duration timeout) {
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("El plazo debe ser mayor que cero: " + timeout);
+        }
+        return push(new QueryScope(current.get(), true, System.nanoTime() + timeout.toNanos()));
+    }
+
+    /**
+     * Abre un ámbito sin plazo propio, que solo sirve para poder cancelar las consultas.
+     */
+    public static QueryScope open() {
+        return push(new QueryScope(current.get(), false, 0));
+    }
+
+    private static QueryScope push(QueryScope scope) {
+        current.set(scope);
+        return scope;
+    }
+
+    /**
+     * Devuelve el ámbito abierto en el hilo actual, o null si no hay ninguno.
+     */
+    static QueryScope current() {
+        return current.get();
+    }
+
+    /**
+     * Cancela las sentencias en curso del ámbito y hace fallar las siguientes. Puede llamarse
+     * desde cualquier hilo.
+     */
+    public void cancel() {
+        List<Statement> running;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            running = new ArrayList<>(statements);
+        }
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException ignored) {
+                // La sentencia pudo terminar mientras tanto; no hay nada más que cancelar.
+            }
+        }
+    }
+
+    /**
+     * Indica si el ámbito, o alguno de sus ámbitos exteriores, fue cancelado.
+     */
+    public boolean isCancelled() {
+        return cancelled || (parent != null && parent.isCancelled());
+    }
+
+    /**
+     * Segundos que le quedan al plazo, redondeados hacia arriba, para usar en {@code setQueryTimeout}
+     * (0 si el ámbito no tiene plazo).
+     *
+     * @throws SQLException si el ámbito fue cancelado o el plazo ya venció.
+     */
+    int remainingSeconds() throws SQLException {
+        if (isCancelled()) {
+            throw new SQLException("La consulta fue cancelada.");
+        }
+        if (!limited) {
+            return 0;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            throw new SQLTimeoutException("Se superó el tiempo máximo de la consulta.");
+        }
+        return (int) Math.min(Integer.MAX_VALUE, (remaining + 999_999_999L) / 1_000_000_000L);
+    }
+
+    /**
+     * Registra una sentencia para que {@link #cancel()} pueda cancelarla, en este ámbito y en los exteriores.
+     */
+    void register(Statement statement) throws SQLException {
+        for (QueryScope scope = this; scope != null; scope = scope.parent) {
+            synchronized (scope) {
+                scope.statements.add(statement);
+            }
+        }
+        if (isCancelled()) {
+            statement.cancel(); // Se canceló mientras se preparaba la sentencia.
+        }
+    }
+
+    /**
+     * Quita una sentencia del ámbito. Se llama cuando su conexión vuelve al pool, porque a partir
+     * de ese momento la conexión (y la sentencia, si está en caché) puede usarla otro hilo.
+     */
+    void unregister(Statement statement) {
+        for (QueryScope scope = this; scope != null; scope = scope.parent) {
+            synchronized (scope) {
+                scope.statements.removeIf(registered -> registered == statement);
+            }
+        }
+    }
+
+    /**
+     * Cierra el ámbito y restablece el ámbito exterior en el hilo.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (Thread.currentThread() != owner) {
+            throw new IllegalStateException("El ámbito debe cerrarse en el hilo que lo abrió.");
+        }
+        closed = true;
+        if (parent == null) {
+            current.remove();
+        } else {
+            current.set(parent);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package Gise.persistencia;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Convierte una consulta en un {@link Stream} respaldado por un ResultSet de solo avance y
+ * solo lectura. Las filas se leen del servidor a medida que se consumen, en bloques de
+ * {@code fetchSize}, por lo que la memoria usada no depende del tamaño de la tabla.
+ * Del mismo modo, {@link #openReader} lee un único valor de texto grande sin cargarlo completo.
+ */
+final class ResultStreams {
+
+    /**
+     * Cantidad de filas que se piden al servidor en cada viaje si el llamador no indica otra.
+     */
+    static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /**
+     * Asigna los parámetros de la consulta.
+     */
+    @FunctionalInterface
+    interface ParameterBinder {
+        void bind(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Construye un objeto a partir de la fila actual del ResultSet.
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private ResultStreams() {
+    }
+
+    /**
+     * Ejecuta la consulta sobre una conexión exclusiva del pool y devuelve un Stream de sus filas.
+     * La conexión, la sentencia y el ResultSet se liberan al cerrar el Stream, por lo que debe
+     * usarse con try-with-resources.
+     *
+     * @param manager   administrador de conexiones del que se toma la conexión.
+     * @param sql       consulta a ejecutar.
+     * @param fetchSize cantidad de filas por viaje al servidor.
+     * @param binder    asigna los parámetros de la consulta.
+     * @param mapper    convierte cada fila en un objeto.
+     */
+    static <T> Stream<T> open(ConnectionManager manager, String sql, int fetchSize,
+                              ParameterBinder binder, RowMapper<T> mapper) throws SQLException {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de fetch debe ser mayor que cero: " + fetchSize);
+        }
+        Connection connection = manager.connectDetached();
+        PreparedStatement ps = null;
+        try {
+            // Variante sin caché: la sentencia queda abierta mientras dure el Stream.
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            binder.bind(ps);
+            ResultSet rs = ps.executeQuery();
+            rs.setFetchSize(fetchSize);
+
+            PreparedStatement statement = ps;
+            Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    } catch (SQLException ex) {
+                        throw new RuntimeException("Error al leer el resultado de la consulta: " + ex.getMessage(), ex);
+                    }
+                }
+            };
+            return StreamSupport.stream(spliterator, false).onClose(() -> close(rs, statement, connection));
+        } catch (SQLException | RuntimeException ex) {
+            close(null, ps, connection);
+            throw ex;
+        }
+    }
+
+    /**
+     * Ejecuta una consulta que devuelve un valor de texto sobre una conexión exclusiva del pool y
+     * devuelve un Reader que lo lee del servidor a medida que se consume. La conexión, la
+     * sentencia y el ResultSet se liberan al cerrar el Reader, por lo que debe usarse con
+     * try-with-resources.
+     *
+     * @return el Reader de la primera columna de la primera fila, o null si no hay filas o el
+     *         valor es NULL.
+     */
+    static Reader openReader(ConnectionManager manager, String sql, ParameterBinder binder) throws SQLException {
+        Connection connection = manager.connectDetached();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            binder.bind(ps);
+            rs = ps.executeQuery();
+            Reader reader = rs.next() ? rs.getCharacterStream(1) : null;
+            if (reader == null) {
+                close(rs, ps, connection);
+                return null;
+            }
+
+            ResultSet resultSet = rs;
+            PreparedStatement statement = ps;
+            return new FilterReader(reader) {
+                private boolean closed;
+
+                @Override
+                public void close() throws IOException {
+                    if (closed) {
+                        return;
+                    }
+                    closed = true;
+                    try {
+                        super.close();
+                    } finally {
+                        ResultStreams.close(resultSet, statement, connection);
+                    }
+                }
+            };
+        } catch (SQLException | RuntimeException ex) {
+            close(rs, ps, connection);
+            throw ex;
+        }
+    }
+
+    private static void close(ResultSet rs, PreparedStatement ps, Connection connection) {
+        try {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+        } catch (SQLException ignored) {
+            // La conexión se devuelve al pool de todas formas.
+        } finally {
+            try {
+                connection.close(); // Devuelve la conexión al pool.
+            } catch (SQLException ignored) {
+                // El pool descarta la conexión si quedó en mal estado.
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package Gise.persistencia;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Aplica al iniciar la aplicación los scripts de migración del esquema que todavía no se
+ * aplicaron a la base de datos.
+ * <p>
+ * Los scripts están en {@code Gise/persistencia/migraciones} con nombres
+ * {@code V<versión>__<descripción>.sql} y se aplican en orden de versión, cada uno en su propia
+ * transacción. La tabla {@code SchemaVersion} guarda qué versiones se aplicaron y el SHA-256 de
+ * cada script, para detectar si un script ya aplicado fue modificado. Un bloqueo de aplicación
+ * ({@code sp_getapplock}) evita que dos instancias apliquen la misma migración a la vez.
+ * Los scripts se dividen en lotes con líneas {@code GO}, igual que en SQL Server Management Studio.
+ */
+public class SchemaMigrator {
+
+    /**
+     * Scripts de migración, en orden. Al agregar un script a la carpeta hay que sumarlo aquí.
+     */
+    private static final String[] MIGRATIONS = {
+            "V001__indices.sql",
+            "V002__version.sql",
+            "V003__clave_externa.sql",
+            "V004__cambios.sql",
+            "V005__agregados_salario.sql"
+    };
+
+    private static final String RESOURCE_FOLDER = "migraciones/";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final Pattern BATCH_SEPARATOR = Pattern.compile("(?im)^\\s*GO\\s*$");
+    private static final int LOCK_TIMEOUT_MILLIS = 60_000;
+
+    private final ConnectionManager conn;
+
+    public SchemaMigrator() {
+        conn = ConnectionManager.getInstance();
+    }
+
+    /**
+     * Aplica las migraciones pendientes.
+     *
+     * @return las versiones aplicadas en esta llamada (vacía si el esquema ya estaba al día).
+     * @throws SQLException si falla una migración (sus cambios se deshacen) o si un script ya
+     *                      aplicado fue modificado.
+     */
+    public List<Integer> migrate() throws SQLException {
+        List<Integer> applied = new ArrayList<>();
+        for (String fileName : MIGRATIONS) {
+            Matcher matcher = FILE_NAME.matcher(fileName);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Nombre de migración inválido: " + fileName);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String description = matcher.group(2).replace('_', ' ');
+            String script = loadScript(fileName);
+            if (apply(version, description, script)) {
+                applied.add(version);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Devuelve la última versión aplicada, o 0 si no se aplicó ninguna.
+     */
+    public int getCurrentVersion() throws SQLException {
+        String sql = "IF OBJECT_ID('dbo.SchemaVersion') IS NULL SELECT 0 ELSE SELECT ISNULL(MAX(version), 0) FROM dbo.SchemaVersion";
+        try (Statement st = conn.connect().createStatement();
+             ResultSet rs = st.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        } catch (SQLException ex) {
+            throw new SQLException("Error al obtener la versión del esquema: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Aplica una migración si no estaba aplicada.
+     *
+     * @return true si se aplicó en esta llamada.
+     */
+    private boolean apply(int version, String description, String script) throws SQLException {
+        String checksum = checksum(script);
+        try (Session session = conn.beginSession()) {
+            Connection connection = session.getConnection();
+            lock(connection);
+            ensureVersionTable(connection);
+
+            String appliedChecksum = appliedChecksums(connection).get(version);
+            if (appliedChecksum != null) {
+                if (!appliedChecksum.equals(checksum)) {
+                    throw new SQLException("La migración " + version + " (" + description
+                            + ") fue modificada después de aplicarse.");
+                }
+                return false;
+            }
+
+            try (Statement st = connection.createStatement()) {
+                for (String batch : BATCH_SEPARATOR.split(script)) {
+                    if (!batch.isBlank()) {
+                        st.execute(batch);
+                    }
+                }
+            }
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO dbo.SchemaVersion (version, description, checksum) VALUES (?, ?, ?)")) {
+                ps.setInt(1, version);
+                ps.setString(2, description);
+                ps.setString(3, checksum);
+                ps.executeUpdate();
+            }
+            session.commit();
+            return true;
+        } catch (SQLException ex) {
+            throw new SQLException("Error al aplicar la migración " + version + " (" + description + "): "
+                    + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Toma un bloqueo exclusivo que dura hasta el fin de la transacción.
+     */
+    private void lock(Connection connection) throws SQLException {
+        String sql = "DECLARE @resultado INT; " +
+                "EXEC @resultado = sp_getapplock @Resource = 'Gise.SchemaMigrator', @LockMode = 'Exclusive', " +
+                "@LockOwner = 'Transaction', @LockTimeout = ?; SELECT @resultado";
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, LOCK_TIMEOUT_MILLIS);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next() || rs.getInt(1) < 0) {
+                    throw new SQLException("No se pudo obtener el bloqueo para migrar el esquema.");
+                }
+            }
+        }
+    }
+
+    private void ensureVersionTable(Connection connection) throws SQLException {
+        String sql = "IF OBJECT_ID('dbo.SchemaVersion') IS NULL " +
+                "CREATE TABLE dbo.SchemaVersion (" +
+                "version INT PRIMARY KEY, " +
+                "description VARCHAR(200) NOT NULL, " +
+                "checksum CHAR(64) NOT NULL, " +
+                "appliedAt DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME())";
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    private Map<Integer, String> appliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> checksums = new HashMap<>();
+        try (PreparedStatement ps = connection.prepareStatement("SELECT version, checksum FROM dbo.SchemaVersion");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                checksums.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return checksums;
+    }
+
+    private String loadScript(String fileName) throws SQLException {
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(RESOURCE_FOLDER + fileName)) {
+            if (in == null) {
+                throw new SQLException("No se encontró el script de migración " + fileName);
+            }
+            // Se normalizan los fines de línea para que el checksum no dependa del sistema operativo.
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException ex) {
+            throw new SQLException("Error al leer el script de migración " + fileName + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String checksum(String script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(script.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no está disponible.", ex);
+        }
+    }
+}
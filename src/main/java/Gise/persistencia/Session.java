@@ -0,0 +1,148 @@
+package Gise.persistencia;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unidad de trabajo: agrupa varias operaciones de los DAO en una misma conexión y transacción.
+ * <p>
+ * Mientras la sesión está abierta, todos los métodos de los DAO que se ejecuten en el mismo
+ * hilo se unen a ella automáticamente, porque {@link ConnectionManager#connect()} entrega la
+ * conexión ya prestada al hilo. Se usa con try-with-resources:
+ * <pre>
+ * try (Session session = ConnectionManager.getInstance().beginSession()) {
+ *     employeeDAO.update(a);
+ *     employeeDAO.update(b);
+ *     session.commit();
+ * }
+ * </pre>
+ * Si la sesión se cierra sin llamar a {@link #commit()}, los cambios se deshacen.
+ * Las sesiones anidadas se unen a la exterior: solo la sesión más externa confirma la
+ * transacción, y si una sesión interna se cierra sin confirmar, la exterior ya no podrá hacerlo.
+ */
+public class Session implements AutoCloseable {
+
+    private final ConnectionManager manager; // Administrador que prestó la conexión.
+    private final Connection connection; // Conexión compartida por todas las operaciones de la sesión.
+    private final Session parent; // Sesión exterior a la que se unió esta sesión (null si es la más externa).
+    private boolean committed;
+    private boolean rollbackOnly; // Una sesión interna falló; la transacción ya no puede confirmarse.
+    private boolean closed;
+    private List<Runnable> completionActions; // Acciones a ejecutar cuando termine la transacción.
+
+    Session(ConnectionManager manager, Connection connection, Session parent) {
+        this.manager = manager;
+        this.connection = connection;
+        this.parent = parent;
+    }
+
+    /**
+     * Devuelve la conexión de la sesión.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    Session getParent() {
+        return parent;
+    }
+
+    /**
+     * Indica si esta sesión controla la transacción (no está unida a otra sesión exterior).
+     */
+    public boolean isOutermost() {
+        return parent == null;
+    }
+
+    /**
+     * Confirma los cambios de la sesión. En una sesión anidada solo marca la parte interna
+     * como correcta; la confirmación real la hace la sesión más externa.
+     *
+     * @throws SQLException si la sesión está cerrada, fue marcada para deshacerse o falla el commit.
+     */
+    public void commit() throws SQLException {
+        if (closed) {
+            throw new SQLException("La sesión ya está cerrada.");
+        }
+        if (rollbackOnly) {
+            throw new SQLException("La transacción fue marcada para deshacerse por una operación interna.");
+        }
+        if (parent == null) {
+            connection.commit();
+            manager.markWrite();
+        }
+        committed = true;
+    }
+
+    /**
+     * Deshace los cambios de la sesión. En una sesión anidada marca la transacción exterior
+     * para que tampoco pueda confirmarse.
+     *
+     * @throws SQLException si falla el rollback.
+     */
+    public void rollback() throws SQLException {
+        committed = false;
+        if (parent == null) {
+            connection.rollback();
+        } else {
+            parent.markRollbackOnly();
+        }
+    }
+
+    /**
+     * Registra una acción que se ejecuta cuando termina la transacción, ya sea confirmada o
+     * deshecha. En una sesión anidada la acción se registra en la sesión más externa.
+     */
+    void afterCompletion(Runnable action) {
+        if (parent != null) {
+            parent.afterCompletion(action);
+            return;
+        }
+        if (completionActions == null) {
+            completionActions = new ArrayList<>();
+        }
+        completionActions.add(action);
+    }
+
+    private void markRollbackOnly() {
+        rollbackOnly = true;
+        if (parent != null) {
+            parent.markRollbackOnly();
+        }
+    }
+
+    /**
+     * Cierra la sesión. Si no se confirmó, los cambios se deshacen. Luego la conexión
+     * vuelve a modo auto-commit y se libera.
+     */
+    @Override
+    public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (parent == null) {
+                try {
+                    if (!committed) {
+                        connection.rollback();
+                    }
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            } else if (!committed) {
+                parent.markRollbackOnly();
+            }
+        } finally {
+            try {
+                manager.endSession(this);
+            } finally {
+                if (completionActions != null) {
+                    completionActions.forEach(Runnable::run);
+                }
+            }
+        }
+    }
+}
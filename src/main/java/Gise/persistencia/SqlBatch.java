@@ -0,0 +1,354 @@
+package Gise.persistencia;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Utilidades para ejecutar operaciones por lotes que comparten los DAO.
+ */
+final class SqlBatch {
+
+    /**
+     * Tamaño de lote por defecto de las operaciones masivas.
+     */
+    static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * SQL Server admite como máximo 2100 parámetros por sentencia; se deja un margen.
+     */
+    static final int MAX_PARAMETERS = 2000;
+
+    /**
+     * Tablas cuyas eliminaciones se registran en {@code DeletedRows} (ver {@link ChangeSet}).
+     */
+    static final Set<String> TRACKED_TABLES = Set.of("Employees", "Positions");
+
+    /**
+     * Asigna los parámetros de una fila a partir de la posición indicada.
+     */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(PreparedStatement ps, int firstIndex, T item) throws SQLException;
+    }
+
+    /**
+     * Recibe el ID y la nueva versión de un elemento insertado o actualizado por {@link #upsertAll}.
+     */
+    @FunctionalInterface
+    interface UpsertListener<T> {
+        void upserted(T item, int id, long version);
+    }
+
+    private SqlBatch() {
+    }
+
+    /**
+     * Cantidad de filas que caben en una sentencia sin superar el límite de parámetros.
+     */
+    static int rowsPerStatement(int batchSize, int columns) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero: " + batchSize);
+        }
+        return Math.min(batchSize, MAX_PARAMETERS / columns);
+    }
+
+    /**
+     * Genera una lista de marcadores "?, ?, ?" para usar en una cláusula IN.
+     */
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Inserta los elementos en lotes con una sentencia multi-fila por lote y asigna a cada
+     * elemento el ID generado.
+     * <p>
+     * El driver de SQL Server no devuelve claves generadas para {@code executeBatch()}, por lo
+     * que cada lote se envía como {@code INSERT ... OUTPUT INSERTED.id SELECT ... FROM (VALUES ...)
+     * ORDER BY ord}. SQL Server garantiza que los valores IDENTITY se asignan en el orden del
+     * ORDER BY, así que los IDs devueltos, ordenados, corresponden a las filas en el orden enviado.
+     *
+     * @param connection conexión (normalmente la de una {@link Session}) donde se ejecutan los lotes.
+     * @param table      tabla destino.
+     * @param columns    columnas a insertar, en el mismo orden que asigna el binder.
+     * @param items      elementos a insertar.
+     * @param batchSize  cantidad máxima de filas por sentencia.
+     * @param binder     asigna los parámetros de cada fila.
+     * @param idSetter   recibe cada elemento con su ID generado.
+     */
+    static <T> void insertAll(Connection connection, String table, String[] columns, List<T> items, int batchSize,
+                              RowBinder<T> binder, ObjIntConsumer<T> idSetter) throws SQLException {
+        int rowsPerStatement = rowsPerStatement(batchSize, columns.length);
+        String columnList = String.join(", ", columns);
+
+        for (int from = 0; from < items.size(); from += rowsPerStatement) {
+            List<T> chunk = items.subList(from, Math.min(from + rowsPerStatement, items.size()));
+
+            StringBuilder values = new StringBuilder();
+            String rowPlaceholders = placeholders(columns.length);
+            for (int row = 0; row < chunk.size(); row++) {
+                if (row > 0) {
+                    values.append(", ");
+                }
+                values.append('(').append(rowPlaceholders).append(", ").append(row).append(')');
+            }
+            String sql = "INSERT INTO " + table + " (" + columnList + ") OUTPUT INSERTED.id"
+                    + " SELECT " + columnList + " FROM (VALUES " + values + ") AS v (" + columnList + ", ord)"
+                    + " ORDER BY ord";
+
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int row = 0; row < chunk.size(); row++) {
+                    binder.bind(ps, row * columns.length + 1, chunk.get(row));
+                }
+
+                List<Integer> ids = new ArrayList<>(chunk.size());
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getInt(1));
+                    }
+                }
+                if (ids.size() != chunk.size()) {
+                    throw new SQLException("Se esperaban " + chunk.size() + " IDs generados y se obtuvieron " + ids.size());
+                }
+                Collections.sort(ids);
+                for (int row = 0; row < chunk.size(); row++) {
+                    idSetter.accept(chunk.get(row), ids.get(row));
+                }
+            }
+        }
+    }
+
+    /**
+     * Ejecuta la misma sentencia de modificación para cada elemento usando lotes JDBC
+     * ({@code addBatch}/{@code executeBatch}).
+     *
+     * @return un arreglo alineado con los elementos: true si la fila fue modificada.
+     */
+    static <T> boolean[] executeAll(Connection connection, String sql, Collection<T> items, int batchSize,
+                                    RowBinder<T> binder) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote debe ser mayor que cero: " + batchSize);
+        }
+        boolean[] results = new boolean[items.size()];
+        int done = 0;
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (T item : items) {
+                binder.bind(ps, 1, item);
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    done = collect(ps.executeBatch(), results, done);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                collect(ps.executeBatch(), results, done);
+            }
+        }
+        return results;
+    }
+
+    private static int collect(int[] counts, boolean[] results, int offset) {
+        for (int count : counts) {
+            // SUCCESS_NO_INFO indica que la sentencia se ejecutó pero el driver no informa cuántas filas afectó.
+            results[offset++] = count > 0 || count == Statement.SUCCESS_NO_INFO;
+        }
+        return offset;
+    }
+
+    /**
+     * Elimina las filas con los IDs indicados usando sentencias {@code DELETE ... WHERE id IN (...)}
+     * de hasta {@code batchSize} IDs cada una.
+     *
+     * En las tablas con seguimiento de cambios se deja además una marca por fila en
+     * {@code DeletedRows}, para que {@code changesSince} informe la eliminación.
+     *
+     * @return un arreglo alineado con los IDs: true si la fila existía y fue eliminada.
+     */
+    static boolean[] deleteByIds(Connection connection, String table, int[] ids, int batchSize) throws SQLException {
+        int rowsPerStatement = rowsPerStatement(batchSize, 1);
+        Set<Integer> deleted = new HashSet<>();
+        String tombstones = TRACKED_TABLES.contains(table)
+                ? " OUTPUT '" + table + "', DELETED.id INTO DeletedRows (tableName, id)"
+                : "";
+
+        for (int from = 0; from < ids.length; from += rowsPerStatement) {
+            int to = Math.min(from + rowsPerStatement, ids.length);
+            String sql = "DELETE FROM " + table + tombstones + " OUTPUT DELETED.id WHERE id IN (" + placeholders(to - from) + ")";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    ps.setInt(i - from + 1, ids[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        deleted.add(rs.getInt(1));
+                    }
+                }
+            }
+        }
+
+        boolean[] results = new boolean[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            results[i] = deleted.contains(ids[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Lee la versión ({@code rowversion}) actual de las filas con los IDs indicados.
+     *
+     * @return la versión de cada ID; las filas que no existen no aparecen.
+     */
+    static Map<Integer, Long> readVersions(Connection connection, String table, int[] ids, int batchSize) throws SQLException {
+        int rowsPerStatement = rowsPerStatement(batchSize, 1);
+        Map<Integer, Long> versions = new HashMap<>();
+
+        for (int from = 0; from < ids.length; from += rowsPerStatement) {
+            int to = Math.min(from + rowsPerStatement, ids.length);
+            String sql = "SELECT id, CAST(version AS BIGINT) FROM " + table + " WHERE id IN (" + placeholders(to - from) + ")";
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = from; i < to; i++) {
+                    ps.setInt(i - from + 1, ids[i]);
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        versions.put(rs.getInt(1), rs.getLong(2));
+                    }
+                }
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Revisa el resultado de una actualización por lotes con control de versión: si una fila
+     * con versión conocida no se actualizó pero sigue existiendo, otro usuario la modificó.
+     *
+     * @param updated resultado de {@link #executeAll}, alineado con los elementos.
+     * @return la versión actual de cada ID, para asignarla a los elementos una vez confirmada la transacción.
+     * @throws OptimisticLockException con la primera fila en conflicto.
+     */
+    static <T> Map<Integer, Long> checkVersions(Connection connection, String table, Collection<T> items,
+                                                boolean[] updated, ToIntFunction<T> id, ToLongFunction<T> version,
+                                                int batchSize) throws SQLException {
+        Map<Integer, Long> versions = readVersions(connection, table, items.stream().mapToInt(id).toArray(), batchSize);
+        int i = 0;
+        for (T item : items) {
+            if (!updated[i++] && version.applyAsLong(item) != 0 && versions.containsKey(id.applyAsInt(item))) {
+                throw new OptimisticLockException(table, id.applyAsInt(item));
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Verifica que todos los elementos tengan clave externa y que no se repita, porque
+     * {@code MERGE} no admite dos filas de origen para la misma fila destino.
+     */
+    static <T> void checkExternalKeys(List<T> items, Function<T, String> key) {
+        Set<String> keys = new HashSet<>();
+        for (T item : items) {
+            String value = key.apply(item);
+            if (value == null || value.isBlank()) {
+                throw new IllegalArgumentException("Todos los elementos deben tener clave externa.");
+            }
+            if (!keys.add(value)) {
+                throw new IllegalArgumentException("Clave externa repetida: " + value);
+            }
+        }
+    }
+
+    /**
+     * Inserta o actualiza los elementos según su clave externa con una sentencia {@code MERGE}
+     * por lote. Las filas existentes solo se actualizan si alguno de sus datos cambió.
+     * <p>
+     * Los valores se envían como {@code VALUES} convertidos con {@code CAST} a los tipos
+     * indicados, para comparar con las columnas destino sin conversiones implícitas (por
+     * ejemplo, un double contra una columna DECIMAL). El {@code MERGE} usa {@code HOLDLOCK}
+     * para que dos sincronizaciones simultáneas no inserten la misma clave.
+     *
+     * @param connection conexión (normalmente la de una {@link Session}) donde se ejecutan los lotes.
+     * @param table      tabla destino.
+     * @param columns    columnas a sincronizar; la primera es la clave externa.
+     * @param types      tipo SQL de cada columna, usado en los CAST.
+     * @param items      elementos a sincronizar; las claves no pueden repetirse.
+     * @param batchSize  cantidad máxima de filas por sentencia.
+     * @param binder     asigna los parámetros de cada fila, en el orden de {@code columns}.
+     * @param listener   recibe cada elemento insertado o actualizado con su ID y versión.
+     */
+    static <T> UpsertResult upsertAll(Connection connection, String table, String[] columns, String[] types,
+                                      List<T> items, int batchSize, RowBinder<T> binder,
+                                      UpsertListener<T> listener) throws SQLException {
+        int rowsPerStatement = rowsPerStatement(batchSize, columns.length);
+        String key = columns[0];
+        StringBuilder source = new StringBuilder();
+        StringBuilder target = new StringBuilder();
+        StringBuilder assignments = new StringBuilder();
+        StringBuilder insertValues = new StringBuilder();
+        for (int c = 0; c < columns.length; c++) {
+            String separator = c == 0 ? "" : ", ";
+            source.append(separator).append("CAST(").append(columns[c]).append(" AS ").append(types[c]).append(") AS ").append(columns[c]);
+            target.append(separator).append("CAST(t.").append(columns[c]).append(" AS ").append(types[c]).append(")");
+            insertValues.append(separator).append("s.").append(columns[c]);
+            if (c > 0) {
+                assignments.append(c == 1 ? "" : ", ").append(columns[c]).append(" = s.").append(columns[c]);
+            }
+        }
+        String columnList = String.join(", ", columns);
+
+        int inserted = 0;
+        int updated = 0;
+        for (int from = 0; from < items.size(); from += rowsPerStatement) {
+            List<T> chunk = items.subList(from, Math.min(from + rowsPerStatement, items.size()));
+
+            StringBuilder values = new StringBuilder();
+            String rowPlaceholders = placeholders(columns.length);
+            for (int row = 0; row < chunk.size(); row++) {
+                if (row > 0) {
+                    values.append(", ");
+                }
+                values.append('(').append(rowPlaceholders).append(", ").append(row).append(')');
+            }
+            // EXCEPT compara también los NULL, a diferencia de "<>".
+            String sql = "MERGE " + table + " WITH (HOLDLOCK) AS t"
+                    + " USING (SELECT " + source + ", ord FROM (VALUES " + values + ") AS v (" + columnList + ", ord)) AS s"
+                    + " ON t." + key + " = s." + key
+                    + " WHEN MATCHED AND EXISTS (SELECT " + target + " EXCEPT SELECT " + insertValues + ")"
+                    + " THEN UPDATE SET " + assignments
+                    + " WHEN NOT MATCHED BY TARGET THEN INSERT (" + columnList + ") VALUES (" + insertValues + ")"
+                    + " OUTPUT $action, INSERTED.id, CAST(INSERTED.version AS BIGINT), s.ord;";
+
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int row = 0; row < chunk.size(); row++) {
+                    binder.bind(ps, row * columns.length + 1, chunk.get(row));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        if ("INSERT".equals(rs.getString(1))) {
+                            inserted++;
+                        } else {
+                            updated++;
+                        }
+                        listener.upserted(chunk.get(rs.getInt(4)), rs.getInt(2), rs.getLong(3));
+                    }
+                }
+            }
+        }
+        return new UpsertResult(inserted, updated, items.size() - inserted - updated);
+    }
+}
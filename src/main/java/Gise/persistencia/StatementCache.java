@@ -0,0 +1,192 @@
+package Gise.persistencia;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU acotada de sentencias preparadas para una conexión del pool.
+ * <p>
+ * Los DAO preparan siempre las mismas consultas constantes; con esta caché, la segunda vez
+ * que se prepara el mismo SQL sobre la misma conexión física se reutiliza la sentencia ya
+ * preparada en el servidor. La sentencia que recibe el DAO es un proxy: al cerrarla solo se
+ * limpian sus parámetros y queda disponible para el siguiente uso.
+ */
+public class StatementCache {
+
+    /**
+     * Contadores de aciertos, fallos y expulsiones, compartidos por todas las cachés del pool.
+     */
+    public static class Stats {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public double getHitRatio() {
+            long total = getHits() + getMisses();
+            return total == 0 ? 0 : (double) getHits() / total;
+        }
+    }
+
+    /**
+     * Clave de la caché: el texto SQL y si la sentencia devuelve claves generadas.
+     */
+    private record Key(String sql, int autoGeneratedKeys) {
+    }
+
+    /**
+     * Sentencia preparada real y si en este momento la está usando algún DAO.
+     */
+    private static final class Entry {
+        private final PreparedStatement statement;
+        private boolean inUse;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    private final Connection connection; // Conexión física dueña de las sentencias.
+    private final Stats stats;
+    private final LinkedHashMap<Key, Entry> entries;
+
+    StatementCache(Connection connection, int maxSize, Stats stats) {
+        this.connection = connection;
+        this.stats = stats;
+        // accessOrder = true: el recorrido va del menos usado recientemente al más usado.
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > maxSize && !eldest.getValue().inUse) {
+                    closeQuietly(eldest.getValue().statement);
+                    stats.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Devuelve una sentencia preparada para el SQL indicado, reutilizando la que ya está en caché.
+     * Si la sentencia en caché está siendo usada (por ejemplo, en una llamada anidada con el
+     * mismo SQL), se prepara una sentencia aparte que se cierra normalmente.
+     */
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.inUse) {
+                stats.misses.increment();
+                return connection.prepareStatement(sql, autoGeneratedKeys);
+            }
+            stats.hits.increment();
+        } else {
+            stats.misses.increment();
+            entry = new Entry(connection.prepareStatement(sql, autoGeneratedKeys));
+            entries.put(key, entry);
+        }
+        entry.inUse = true;
+        return wrap(entry);
+    }
+
+    /**
+     * Cierra todas las sentencias en caché. Se llama antes de cerrar la conexión física.
+     */
+    synchronized void clear() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            closeQuietly(iterator.next().statement);
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Marca todas las sentencias como libres. Se llama cuando la conexión vuelve al pool,
+     * ya que a partir de ese momento ningún DAO puede seguir usándolas.
+     */
+    synchronized void releaseAll() {
+        for (Entry entry : entries.values()) {
+            entry.inUse = false;
+        }
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void giveBack(Entry entry) {
+        entry.inUse = false;
+    }
+
+    private PreparedStatement wrap(Entry entry) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean closed; // El DAO ya "cerró" su uso de la sentencia.
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            try {
+                                // Un lote que no llegó a ejecutarse (por ejemplo, por una excepción
+                                // al asignar parámetros) no debe enviarse con el siguiente uso.
+                                entry.statement.clearBatch();
+                                entry.statement.clearParameters();
+                            } finally {
+                                giveBack(entry);
+                            }
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || entry.statement.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        if (closed) {
+                            throw new SQLException("La sentencia ya fue cerrada.");
+                        }
+                        try {
+                            return method.invoke(entry.statement, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // La sentencia se descarta de todas formas.
+        }
+    }
+}
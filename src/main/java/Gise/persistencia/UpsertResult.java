@@ -0,0 +1,44 @@
+package Gise.persistencia;
+
+/**
+ * Resultado de una sincronización con {@code upsertAll}: cuántas filas se insertaron, cuántas
+ * se actualizaron y cuántas ya tenían los mismos datos.
+ */
+public final class UpsertResult {
+
+    private final int inserted;
+    private final int updated;
+    private final int unchanged;
+
+    UpsertResult(int inserted, int updated, int unchanged) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Filas nuevas (su clave externa no existía).
+     */
+    public int getInserted() {
+        return inserted;
+    }
+
+    /**
+     * Filas existentes cuyos datos cambiaron.
+     */
+    public int getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Filas existentes que ya tenían los mismos datos y no se modificaron.
+     */
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    @Override
+    public String toString() {
+        return "insertadas=" + inserted + ", actualizadas=" + updated + ", sin cambios=" + unchanged;
+    }
+}
@@ -1,35 +1,57 @@
 package Gise.persistencia;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import Gise.dominio.User;
 import Gise.utils.PasswordHasher;
 
 public class UserDAO {
     // Manejo de conexión con la base de datos
-    private ConnectionManager conn;
-    private PreparedStatement ps; // Para ejecutar consultas SQL parametrizadas
-    private ResultSet rs; // Para almacenar resultados de consultas SQL
+    private final ConnectionManager conn;
+
+    // Instancia compartida: el DAO no guarda estado, así que puede usarse desde varios hilos
+    private static UserDAO instance;
+
+    // Caché de getById compartida por todas las instancias del DAO, para que cualquier escritura la invalide.
+    // Tamaño y TTL configurables con -Dgise.userCache.maxSize y -Dgise.userCache.ttlMillis.
+    private static final EntityCache<User> cache = new EntityCache<>(
+            Integer.getInteger("gise.userCache.maxSize", 1000),
+            Long.getLong("gise.userCache.ttlMillis", 60_000L),
+            UserDAO::copy);
 
     // Constructor: inicializa la conexión a la base de datos
     public UserDAO(){
         conn = ConnectionManager.getInstance();
     }
 
+    /**
+     * Devuelve la instancia compartida del DAO.
+     */
+    public static synchronized UserDAO getInstance() {
+        if (instance == null) {
+            instance = new UserDAO();
+        }
+        return instance;
+    }
+
     /**
      * Crea un nuevo usuario en la base de datos y retorna el usuario creado.
      */
     public User create(User user) throws SQLException {
         User res = null;
-        try {
-            // Preparamos la consulta de inserción, permitiendo obtener el ID generado
-            PreparedStatement ps = conn.connect().prepareStatement(
-                    "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, ?)",
-                    java.sql.Statement.RETURN_GENERATED_KEYS
-            );
+        String sql = "INSERT INTO Users (name, passwordHash, email, status) VALUES (?, ?, ?, ?)";
+
+        // La inserción y la lectura del registro creado comparten la misma conexión y transacción
+        try (Session session = conn.beginSession();
+             PreparedStatement ps = session.getConnection().prepareStatement(sql, java.sql.Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, user.getName());
             ps.setString(2, PasswordHasher.hashPassword(user.getPasswordHash())); // Se cifra la contraseña
             ps.setString(3, user.getEmail());
@@ -39,46 +61,93 @@ public class UserDAO {
 
             // Si la inserción fue exitosa, obtenemos el ID generado
             if (affectedRows != 0) {
-                ResultSet generatedKeys = ps.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    int idGenerado = generatedKeys.getInt(1);
-                    res = getById(idGenerado);
-                } else {
-                    throw new SQLException("Creating user failed, no ID obtained.");
+                try (ResultSet generatedKeys = ps.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        int idGenerado = generatedKeys.getInt(1);
+                        res = getById(idGenerado);
+                    } else {
+                        throw new SQLException("Creating user failed, no ID obtained.");
+                    }
                 }
             }
-            ps.close();
+            session.commit(); // Se confirma una sola vez, al final de la operación
         } catch (SQLException ex) {
             throw new SQLException("Error al crear el usuario: " + ex.getMessage(), ex);
-        } finally {
-            ps = null;
-            conn.disconnect();
         }
         return res;
     }
 
+    /**
+     * Crea varios usuarios en una sola transacción, usando lotes del tamaño por defecto.
+     */
+    public List<User> createAll(List<User> users) throws SQLException {
+        return createAll(users, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Crea varios usuarios en una sola transacción, enviando una sentencia por lote.
+     * Las contraseñas se cifran antes de almacenarse. A cada usuario se le asigna el ID generado.
+     */
+    public List<User> createAll(List<User> users, int batchSize) throws SQLException {
+        try (Session session = conn.beginSession()) {
+            SqlBatch.insertAll(session.getConnection(), "Users",
+                    new String[]{"name", "passwordHash", "email", "status"}, users, batchSize,
+                    (ps, i, user) -> {
+                        ps.setString(i, user.getName());
+                        ps.setString(i + 1, PasswordHasher.hashPassword(user.getPasswordHash())); // Se cifra la contraseña
+                        ps.setString(i + 2, user.getEmail());
+                        ps.setByte(i + 3, user.getStatus());
+                    },
+                    User::setId);
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al crear los usuarios: " + ex.getMessage(), ex);
+        }
+        return users;
+    }
+
     /**
      * Actualiza la información de un usuario en la base de datos.
+     * <p>
+     * Si el usuario tiene versión (se leyó de la base de datos), solo se actualiza si nadie lo
+     * modificó desde entonces; al actualizarlo se le asigna la nueva versión. Con versión 0 se
+     * actualiza sin comprobarla.
+     *
+     * @return true si se actualizó, false si el usuario no existe.
+     * @throws OptimisticLockException si otro usuario modificó el registro desde que se leyó.
      */
     public boolean update(User user) throws SQLException {
         boolean res = false;
+        String sql = "UPDATE Users SET name = ?, email = ?, status = ? " +
+                "OUTPUT CAST(INSERTED.version AS BIGINT) WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
+
         try {
-            ps = conn.connect().prepareStatement(
-                    "UPDATE Users SET name = ?, email = ?, status = ? WHERE id = ?"
-            );
-            ps.setString(1, user.getName());
-            ps.setString(2, user.getEmail());
-            ps.setByte(3, user.getStatus());
-            ps.setInt(4, user.getId());
+            Connection connection = conn.connect();
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                ps.setString(1, user.getName());
+                ps.setString(2, user.getEmail());
+                ps.setByte(3, user.getStatus());
+                ps.setInt(4, user.getId());
+                ps.setLong(5, user.getVersion());
+                ps.setLong(6, user.getVersion());
 
-            if (ps.executeUpdate() > 0) {
-                res = true;
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        user.setVersion(rs.getLong(1));
+                        res = true;
+                    }
+                }
+                invalidateCache(user.getId());
+                if (!res && user.getVersion() != 0 && !SqlBatch.readVersions(
+                        connection, "Users", new int[]{user.getId()}, 1).isEmpty()) {
+                    throw new OptimisticLockException("Users", user.getId());
+                }
             }
-            ps.close();
+        } catch (OptimisticLockException ex) {
+            throw ex;
         } catch (SQLException ex) {
             throw new SQLException("Error al modificar el usuario: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
             conn.disconnect();
         }
         return res;
@@ -89,110 +158,211 @@ public class UserDAO {
      */
     public boolean delete(User user) throws SQLException {
         boolean res = false;
-        try {
-            ps = conn.connect().prepareStatement("DELETE FROM Users WHERE id = ?");
+        String sql = "DELETE FROM Users WHERE id = ?";
+
+        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
             ps.setInt(1, user.getId());
 
-            if (ps.executeUpdate() > 0) {
-                res = true;
-            }
-            ps.close();
+            res = ps.executeUpdate() > 0;
+            invalidateCache(user.getId());
         } catch (SQLException ex) {
             throw new SQLException("Error al eliminar el usuario: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
             conn.disconnect();
         }
         return res;
     }
 
+    /**
+     * Actualiza varios usuarios en una sola transacción usando lotes JDBC.
+     *
+     * @return un arreglo alineado con la colección: true si el usuario fue actualizado.
+     */
+    public boolean[] updateAll(Collection<User> users) throws SQLException {
+        return updateAll(users, SqlBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Actualiza varios usuarios en una sola transacción, enviando {@code batchSize} filas por lote.
+     * Las versiones se comprueban igual que en {@link #update(User)}: si algún usuario fue
+     * modificado por otro no se actualiza ninguno.
+     *
+     * @return un arreglo alineado con la colección: true si el usuario fue actualizado.
+     * @throws OptimisticLockException si otro usuario modificó alguno de los registros.
+     */
+    public boolean[] updateAll(Collection<User> users, int batchSize) throws SQLException {
+        boolean[] res;
+        Map<Integer, Long> versions;
+        String sql = "UPDATE Users SET name = ?, email = ?, status = ? " +
+                "WHERE id = ? AND (? = 0 OR version = CAST(? AS BINARY(8)))";
+
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.executeAll(session.getConnection(), sql, users, batchSize, (ps, i, user) -> {
+                ps.setString(i, user.getName());
+                ps.setString(i + 1, user.getEmail());
+                ps.setByte(i + 2, user.getStatus());
+                ps.setInt(i + 3, user.getId());
+                ps.setLong(i + 4, user.getVersion());
+                ps.setLong(i + 5, user.getVersion());
+            });
+            invalidateCache(users.stream().mapToInt(User::getId).toArray());
+            versions = SqlBatch.checkVersions(session.getConnection(), "Users", users, res,
+                    User::getId, User::getVersion, batchSize);
+            session.commit();
+        } catch (OptimisticLockException ex) {
+            throw ex;
+        } catch (SQLException ex) {
+            throw new SQLException("Error al modificar los usuarios: " + ex.getMessage(), ex);
+        }
+        int i = 0;
+        for (User user : users) {
+            if (res[i++]) {
+                user.setVersion(versions.get(user.getId()));
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Elimina los usuarios con los IDs indicados en una sola transacción.
+     *
+     * @return un arreglo alineado con los IDs: true si el usuario existía y fue eliminado.
+     */
+    public boolean[] deleteByIds(int[] ids) throws SQLException {
+        boolean[] res;
+        try (Session session = conn.beginSession()) {
+            res = SqlBatch.deleteByIds(session.getConnection(), "Users", ids, SqlBatch.DEFAULT_BATCH_SIZE);
+            invalidateCache(ids);
+            session.commit();
+        } catch (SQLException ex) {
+            throw new SQLException("Error al eliminar los usuarios: " + ex.getMessage(), ex);
+        }
+        return res;
+    }
+
     /**
      * Busca usuarios en la base de datos cuyo nombre contenga la cadena ingresada.
      */
     public ArrayList<User> search(String name) throws SQLException {
         ArrayList<User> records = new ArrayList<>();
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status FROM Users WHERE name LIKE ?");
-            ps.setString(1, "%" + name + "%"); // Permite buscar coincidencias parciales en nombres
+        String sql = "SELECT id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE name LIKE ?";
 
-            rs = ps.executeQuery();
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setString(1, "%" + name + "%"); // Permite buscar coincidencias parciales en nombres
 
-            while (rs.next()) {
-                User user = new User();
-                user.setId(rs.getInt(1));
-                user.setName(rs.getString(2));
-                user.setEmail(rs.getString(3));
-                user.setStatus(rs.getByte(4));
-                records.add(user);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(map(rs));
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al buscar usuarios: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return records;
     }
 
     /**
-     * Obtiene un usuario por su ID.
+     * Busca usuarios cuyo nombre contenga la cadena indicada, de a una página por vez.
+     * Los resultados se ordenan por nombre e id y se paginan por clave: cada página continúa
+     * después de la última fila de la anterior, sin recorrer las filas ya devueltas.
+     *
+     * @param name     texto a buscar (cadena vacía para todos).
+     * @param pageSize  cantidad máxima de elementos de la página.
+     * @param pageToken token devuelto por la página anterior, o null para pedir la primera.
+     */
+    public Page<User> searchPage(String name, int pageSize, String pageToken) throws SQLException {
+        Page.checkPageSize(pageSize);
+        List<User> records = new ArrayList<>();
+        String sql = pageToken == null
+                ? "SELECT TOP (?) id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE name LIKE ? ORDER BY name, id"
+                : "SELECT TOP (?) id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE name LIKE ? AND (name > ? OR (name = ? AND id > ?)) ORDER BY name, id";
+
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, pageSize + 1); // Se pide una fila extra para saber si hay más páginas
+            ps.setString(2, "%" + name + "%");
+            if (pageToken != null) {
+                Page.Key key = Page.decodeToken(pageToken);
+                ps.setString(3, key.value());
+                ps.setString(4, key.value());
+                ps.setInt(5, key.id());
+            }
+
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(map(rs));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new SQLException("Error al buscar usuarios: " + ex.getMessage(), ex);
+        } finally {
+            conn.disconnect();
+        }
+        return Page.of(records, pageSize, User::getName, User::getId);
+    }
+
+    /**
+     * Obtiene un usuario por su ID. Fuera de una sesión se responde desde la caché de usuarios
+     * si el usuario se leyó hace poco.
      */
     public User getById(int id) throws SQLException {
+        if (conn.currentSession() == null) {
+            return cache.get(id, this::load);
+        }
+        return load(id);
+    }
+
+    /**
+     * Devuelve la caché de {@link #getById(int)}, para consultar sus estadísticas o invalidarla.
+     */
+    public EntityCache<User> getCache() {
+        return cache;
+    }
+
+    /**
+     * Lee un usuario desde la base de datos, sin pasar por la caché.
+     */
+    private User load(int id) throws SQLException {
         User user = null;
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status FROM Users WHERE id = ?");
-            ps.setInt(1, id);
+        String sql = "SELECT id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE id = ?";
 
-            rs = ps.executeQuery();
+        try (PreparedStatement ps = conn.connectForRead().prepareStatement(sql)) {
+            ps.setInt(1, id);
 
-            if (rs.next()) {
-                user = new User();
-                user.setId(rs.getInt(1));
-                user.setName(rs.getString(2));
-                user.setEmail(rs.getString(3));
-                user.setStatus(rs.getByte(4));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    user = map(rs);
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al obtener un usuario por ID: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return user;
     }
 
     /**
-     * Autentica un usuario verificando su email y contraseña cifrada.
+     * Autentica un usuario verificando su email y contraseña cifrada. Siempre se consulta el
+     * servidor principal, para que un cambio de contraseña o de estado se vea de inmediato.
      */
     public User authenticate(User user) throws SQLException {
         User userAuthenticated = null;
-        try {
-            ps = conn.connect().prepareStatement("SELECT id, name, email, status FROM Users WHERE email = ? AND passwordHash = ? AND status = 1");
+        String sql = "SELECT id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE email = ? AND passwordHash = ? AND status = 1";
+
+        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
             ps.setString(1, user.getEmail());
             ps.setString(2, PasswordHasher.hashPassword(user.getPasswordHash()));
 
-            rs = ps.executeQuery();
-
-            if (rs.next()) {
-                userAuthenticated = new User();
-                userAuthenticated.setId(rs.getInt(1));
-                userAuthenticated.setName(rs.getString(2));
-                userAuthenticated.setEmail(rs.getString(3));
-                userAuthenticated.setStatus(rs.getByte(4));
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    userAuthenticated = map(rs);
+                }
             }
-            ps.close();
-            rs.close();
         } catch (SQLException ex) {
             throw new SQLException("Error al autenticar el usuario: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
-            rs = null;
             conn.disconnect();
         }
         return userAuthenticated;
@@ -203,21 +373,81 @@ public class UserDAO {
      */
     public boolean updatePassword(User user) throws SQLException {
         boolean res = false;
-        try {
-            ps = conn.connect().prepareStatement("UPDATE Users SET passwordHash = ? WHERE id = ?");
+        String sql = "UPDATE Users SET passwordHash = ? WHERE id = ?";
+
+        try (PreparedStatement ps = conn.connect().prepareStatement(sql)) {
             ps.setString(1, PasswordHasher.hashPassword(user.getPasswordHash()));
             ps.setInt(2, user.getId());
 
-            if (ps.executeUpdate() > 0) {
-                res = true;
-            }
-            ps.close();
+            res = ps.executeUpdate() > 0;
+            invalidateCache(user.getId());
         } catch (SQLException ex) {
             throw new SQLException("Error al modificar el password del usuario: " + ex.getMessage(), ex);
         } finally {
-            ps = null;
             conn.disconnect();
         }
         return res;
     }
+
+    /**
+     * Recorre los usuarios cuyo nombre contenga la cadena indicada sin cargarlos todos en memoria.
+     * El Stream debe cerrarse (try-with-resources) para devolver la conexión al pool.
+     */
+    public Stream<User> stream(String name) throws SQLException {
+        return stream(name, ResultStreams.DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Igual que {@link #stream(String)}, indicando cuántas filas se piden al servidor por viaje.
+     */
+    public Stream<User> stream(String name, int fetchSize) throws SQLException {
+        String sql = "SELECT id, name, email, status, CAST(version AS BIGINT) FROM Users WHERE name LIKE ? ORDER BY id";
+        try {
+            return ResultStreams.open(conn, sql, fetchSize, ps -> ps.setString(1, "%" + name + "%"), this::map);
+        } catch (SQLException ex) {
+            throw new SQLException("Error al recorrer usuarios: " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Construye un User a partir de la fila actual (id, name, email, status, version).
+     */
+    private User map(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getInt(1));
+        user.setName(rs.getString(2));
+        user.setEmail(rs.getString(3));
+        user.setStatus(rs.getByte(4));
+        user.setVersion(rs.getLong(5));
+        return user;
+    }
+
+    /**
+     * Descarta de la caché los usuarios modificados. Si la escritura forma parte de una sesión,
+     * se descartan otra vez al terminar la transacción, porque hasta entonces otros hilos pueden
+     * haberlos vuelto a leer con los datos anteriores.
+     * También registra la escritura para que las próximas lecturas no vayan a la réplica.
+     */
+    private void invalidateCache(int... ids) {
+        conn.markWrite();
+        Runnable invalidate = () -> {
+            for (int id : ids) {
+                cache.invalidate(id);
+            }
+        };
+        invalidate.run();
+        Session session = conn.currentSession();
+        if (session != null) {
+            session.afterCompletion(invalidate);
+        }
+    }
+
+    /**
+     * Crea una copia independiente de un usuario para guardar o devolver desde la caché.
+     */
+    private static User copy(User user) {
+        User copy = new User(user.getId(), user.getName(), user.getPasswordHash(), user.getEmail(), user.getStatus());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
 }
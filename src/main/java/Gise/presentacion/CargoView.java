@@ -7,9 +7,16 @@ import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.sql.SQLException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 
 import Gise.dominio.Position;
+import Gise.dominio.PositionSalaryStats;
+import Gise.persistencia.ChangeSet;
+import Gise.persistencia.EmployeeDAO;
+import Gise.persistencia.OptimisticLockException;
 import Gise.persistencia.PositionDAO;
 
 public class CargoView extends JFrame {
@@ -35,9 +42,14 @@ public class CargoView extends JFrame {
 
     // DAO
     private PositionDAO cargoDAO;
+    private EmployeeDAO empleadoDAO;
 
     // Variables de control
     private boolean modoEdicion = false;
+    private long versionSeleccionada; // Versión del cargo cargado en el formulario.
+    private String terminoActual = ""; // Término de búsqueda de los cargos que se están mostrando.
+    private String tokenCambios; // Token para pedir los cambios posteriores a la última carga (null si no hay).
+    private Map<Integer, PositionSalaryStats> estadisticas = new HashMap<>(); // Empleados y salarios por ID de cargo.
     private JPanel mainpanel;
     private JPanel pnlBusqueda;
     private JLabel lblBuscar;
@@ -52,7 +64,8 @@ public class CargoView extends JFrame {
     private JPanel pnlBotones;
 
     public CargoView() {
-        cargoDAO = new PositionDAO();
+        cargoDAO = PositionDAO.getInstance();
+        empleadoDAO = EmployeeDAO.getInstance();
         initComponents();
         configurarTabla();
         cargarDatos();
@@ -185,7 +198,7 @@ public class CargoView extends JFrame {
     }
 
     private void configurarTabla() {
-        String[] columnas = {"ID", "Título", "Descripción"};
+        String[] columnas = {"ID", "Título", "Descripción", "Empleados", "Nómina", "Salario promedio"};
         modeloTabla = new DefaultTableModel(columnas, 0) {
             @Override
             public boolean isCellEditable(int row, int column) {
@@ -199,6 +212,9 @@ public class CargoView extends JFrame {
         tblCargos.getColumnModel().getColumn(0).setPreferredWidth(50);
         tblCargos.getColumnModel().getColumn(1).setPreferredWidth(150);
         tblCargos.getColumnModel().getColumn(2).setPreferredWidth(300);
+        tblCargos.getColumnModel().getColumn(3).setPreferredWidth(70);
+        tblCargos.getColumnModel().getColumn(4).setPreferredWidth(100);
+        tblCargos.getColumnModel().getColumn(5).setPreferredWidth(100);
     }
 
     private void configurarEventos() {
@@ -230,9 +246,9 @@ public class CargoView extends JFrame {
     }
 
     private void cargarDatos() {
+        terminoActual = "";
         try {
-            ArrayList<Position> cargos = cargoDAO.getAll();
-            actualizarTabla(cargos);
+            cargarCargos();
         } catch (SQLException e) {
             mostrarError("Error al cargar los datos: " + e.getMessage());
         }
@@ -245,24 +261,137 @@ public class CargoView extends JFrame {
             return;
         }
 
+        terminoActual = termino;
         try {
-            ArrayList<Position> cargos = cargoDAO.search(termino);
-            actualizarTabla(cargos);
+            cargarCargos();
         } catch (SQLException e) {
             mostrarError("Error al buscar: " + e.getMessage());
         }
     }
 
+    /**
+     * Llena la tabla con los cargos que coinciden con la búsqueda actual. Los cargos y el token de
+     * cambios se leen juntos en la base principal, sin la caché de cargos ni la réplica: si las filas
+     * fueran más antiguas que el token, un cambio hecho en el medio no llegaría nunca con
+     * {@link #refrescarCambios()}.
+     */
+    private void cargarCargos() throws SQLException {
+        ChangeSet<Position> todos = cargoDAO.changesSince(null);
+        ArrayList<Position> cargos = new ArrayList<>();
+        for (Position cargo : todos.getChanged()) {
+            if (coincideBusqueda(cargo)) {
+                cargos.add(cargo);
+            }
+        }
+        tokenCambios = todos.getToken();
+        cargarEstadisticas();
+        actualizarTabla(cargos);
+    }
+
     private void actualizarTabla(ArrayList<Position> cargos) {
         modeloTabla.setRowCount(0);
         for (Position cargo : cargos) {
-            Object[] fila = {
-                    cargo.getId(),
-                    cargo.getTitle(),
-                    cargo.getDescription()
-            };
-            modeloTabla.addRow(fila);
+            modeloTabla.addRow(filaDe(cargo));
+        }
+    }
+
+    private Object[] filaDe(Position cargo) {
+        PositionSalaryStats datos = estadisticas.get(cargo.getId());
+        return new Object[]{
+                cargo.getId(),
+                cargo.getTitle(),
+                cargo.getShortDescription(), // La descripción completa se lee al seleccionar el cargo
+                datos == null ? 0 : datos.headcount(),
+                formatearImporte(datos == null ? null : datos.totalSalary()),
+                formatearImporte(datos == null ? null : datos.averageSalary())
+        };
+    }
+
+    /**
+     * Lee la cantidad de empleados y los salarios de cada cargo, calculados en la base de datos
+     * con una sola consulta agrupada.
+     */
+    private void cargarEstadisticas() throws SQLException {
+        Map<Integer, PositionSalaryStats> nuevas = new HashMap<>();
+        for (PositionSalaryStats datos : empleadoDAO.salaryStatsByPosition()) {
+            nuevas.put(datos.positionId(), datos);
         }
+        estadisticas = nuevas;
+    }
+
+    /**
+     * Vuelve a calcular las estadísticas y actualiza sus columnas en las filas mostradas.
+     */
+    private void actualizarEstadisticas() throws SQLException {
+        cargarEstadisticas();
+        for (int fila = 0; fila < modeloTabla.getRowCount(); fila++) {
+            PositionSalaryStats datos = estadisticas.get((int) modeloTabla.getValueAt(fila, 0));
+            modeloTabla.setValueAt(datos == null ? 0 : datos.headcount(), fila, 3);
+            modeloTabla.setValueAt(formatearImporte(datos == null ? null : datos.totalSalary()), fila, 4);
+            modeloTabla.setValueAt(formatearImporte(datos == null ? null : datos.averageSalary()), fila, 5);
+        }
+    }
+
+    private static String formatearImporte(BigDecimal importe) {
+        return importe == null ? "" : String.format("$%.2f", importe);
+    }
+
+    /**
+     * Aplica a la tabla solo los cargos que cambiaron desde la última carga, en lugar de volver
+     * a leerlos todos.
+     */
+    private void refrescarCambios() {
+        if (tokenCambios == null) {
+            cargarDatos();
+            return;
+        }
+        try {
+            ChangeSet<Position> cambios = cargoDAO.changesSince(tokenCambios);
+            for (Position cargo : cambios.getChanged()) {
+                int fila = buscarFila(cargo.getId());
+                if (fila != -1) {
+                    modeloTabla.removeRow(fila);
+                }
+                if (coincideBusqueda(cargo)) {
+                    modeloTabla.insertRow(posicionPorTitulo(cargo.getTitle()), filaDe(cargo));
+                }
+            }
+            for (int id : cambios.getDeletedIds()) {
+                int fila = buscarFila(id);
+                if (fila != -1) {
+                    modeloTabla.removeRow(fila);
+                }
+            }
+            tokenCambios = cambios.getToken();
+            actualizarEstadisticas(); // Los empleados pudieron cambiar desde otras ventanas.
+        } catch (SQLException e) {
+            mostrarError("Error al actualizar los datos: " + e.getMessage());
+        }
+    }
+
+    private int buscarFila(int id) {
+        for (int fila = 0; fila < modeloTabla.getRowCount(); fila++) {
+            if ((int) modeloTabla.getValueAt(fila, 0) == id) {
+                return fila;
+            }
+        }
+        return -1;
+    }
+
+    private boolean coincideBusqueda(Position cargo) {
+        return cargo.getTitle().toLowerCase().contains(terminoActual.toLowerCase());
+    }
+
+    /**
+     * Devuelve la fila donde insertar un cargo para mantener la tabla ordenada por título.
+     */
+    private int posicionPorTitulo(String titulo) {
+        int fila = 0;
+        while (fila < modeloTabla.getRowCount()
+                && String.CASE_INSENSITIVE_ORDER.compare(modeloTabla.getValueAt(fila, 1).toString(), titulo) <= 0) {
+            fila++;
+        }
+        return fila;
     }
 
     private void nuevoCargo() {
@@ -306,7 +435,7 @@ public class CargoView extends JFrame {
 
                 if (cargoDAO.delete(cargo)) {
                     mostrarInformacion("Cargo eliminado exitosamente.");
-                    cargarDatos();
+                    refrescarCambios();
                     limpiarFormulario();
                 } else {
                     mostrarError("No se pudo eliminar el cargo.");
@@ -329,6 +458,7 @@ public class CargoView extends JFrame {
 
             if (modoEdicion) {
                 cargo.setId(Integer.parseInt(txtId.getText()));
+                cargo.setVersion(versionSeleccionada);
                 if (cargoDAO.update(cargo)) {
                     mostrarInformacion("Cargo actualizado exitosamente.");
                 } else {
@@ -343,9 +473,14 @@ public class CargoView extends JFrame {
                 }
             }
 
-            cargarDatos();
+            refrescarCambios();
             cancelarOperacion();
 
+        } catch (OptimisticLockException e) {
+            // Otro usuario modificó el cargo: se traen sus cambios para que vuelva a editarlo.
+            mostrarAdvertencia(e.getMessage());
+            refrescarCambios();
+            cancelarOperacion();
         } catch (SQLException e) {
             mostrarError("Error al guardar: " + e.getMessage());
         }
@@ -369,6 +504,7 @@ public class CargoView extends JFrame {
                 Position cargo = cargoDAO.getById(id);
                 if (cargo != null) {
                     txtDescripcion.setText(cargo.getDescription());
+                    versionSeleccionada = cargo.getVersion();
                 }
             } catch (SQLException e) {
                 mostrarError("Error al cargar detalles: " + e.getMessage());
@@ -18,7 +18,7 @@ public class ChangePasswordForm extends JDialog {
     // Constructor de la clase ChangePasswordForm. Recibe una instancia de MainForm como parámetro.
     public ChangePasswordForm(MainForm mainForm) {
         this.mainForm = mainForm; // Asigna la instancia de MainForm recibida a la variable local.
-        userDAO = new UserDAO(); // Crea una nueva instancia de UserDAO al instanciar este formulario.
+        userDAO = UserDAO.getInstance(); // Obtiene la instancia compartida de UserDAO.
         txtEmail.setText(mainForm.getUserAutenticate().getEmail()); // Pre-carga el campo de correo electrónico con el email del usuario autenticado en la ventana principal.
         setContentPane(mainPanel); // Establece el panel principal como el contenido de este diálogo.
         setModal(true); // Hace que este diálogo sea modal, lo que significa que bloquea la interacción con la ventana principal hasta que se cierre.
@@ -8,12 +8,24 @@ import java.awt.event.WindowEvent;
 import java.sql.SQLException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 import Gise.dominio.Employee;
-import Gise.dominio.Position;
+import Gise.dominio.EmployeeSummary;
+import Gise.dominio.PositionTitle;
+import Gise.persistencia.AsyncDAO;
+import Gise.persistencia.ChangeSet;
 import Gise.persistencia.EmployeeDAO;
+import Gise.persistencia.EmployeeWriteBehind;
+import Gise.persistencia.OptimisticLockException;
+import Gise.persistencia.Page;
 import Gise.persistencia.PositionDAO;
 
 /**
@@ -31,6 +43,7 @@ public class EmpleadoView extends JFrame {
     private JButton btnEditar; // Botón para iniciar la edición de un empleado seleccionado.
     private JButton btnEliminar; // Botón para eliminar un empleado seleccionado.
     private JButton btnLimpiar; // Botón para limpiar el campo de búsqueda y recargar todos los datos.
+    private JButton btnCargarMas; // Botón para traer la siguiente página de empleados.
 
     // Tabla y su modelo para mostrar los datos de los empleados
     private JTable tblEmpleados; // La tabla donde se muestran los empleados.
@@ -39,7 +52,7 @@ public class EmpleadoView extends JFrame {
     // Componentes de la UI para el formulario de datos del empleado
     private JTextField txtId; // Campo de texto para mostrar el ID del empleado (generalmente deshabilitado para edición manual).
     private JTextField txtNombre; // Campo de texto para el nombre del empleado.
-    private JComboBox<Position> cmbCargo; // ComboBox para seleccionar el cargo del empleado.
+    private JComboBox<PositionTitle> cmbCargo; // ComboBox para seleccionar el cargo del empleado.
     private JTextField txtFechaContratacion; // Campo de texto para la fecha de contratación.
     private JTextField txtSalario; // Campo de texto para el salario del empleado.
     private JButton btnGuardar; // Botón para guardar un nuevo empleado o los cambios de uno existente.
@@ -48,10 +61,24 @@ public class EmpleadoView extends JFrame {
     // Objetos Data Access Object (DAOs) para interactuar con la base de datos
     private EmployeeDAO empleadoDAO; // DAO para operaciones CRUD sobre la entidad Employee.
     private PositionDAO cargoDAO; // DAO para operaciones de recuperación sobre la entidad Position.
+    private AsyncDAO asyncDAO; // Ejecuta las cargas de datos fuera del hilo de eventos de Swing.
+    // Escritura diferida de las ediciones (null si está desactivada). Se activa con la propiedad
+    // del sistema gise.employeeWriteBehind.intervalMillis, el intervalo entre envíos.
+    private EmployeeWriteBehind escrituraDiferida;
 
     // Variables de control de la lógica de la vista
     private boolean modoEdicion = false; // Bandera que indica si el formulario está en modo de edición (true) o creación (false).
+    private long versionSeleccionada; // Versión del empleado cargado en el formulario, para detectar cambios de otro usuario.
     private SimpleDateFormat formatoFecha = new SimpleDateFormat("dd/MM/yyyy"); // Formateador para convertir fechas a y desde String.
+    private static final DateTimeFormatter FORMATO_FECHA_TABLA = DateTimeFormatter.ofPattern("dd/MM/yyyy"); // Mismo formato, para las fechas del listado.
+
+    // Paginación de la tabla: solo se traen de la base de datos las filas que se van a mostrar.
+    private static final int TAMANIO_PAGINA = 200; // Cantidad de empleados que se cargan por página.
+    private String terminoActual = ""; // Término de búsqueda de las páginas que se están mostrando.
+    private String tokenSiguiente; // Token para pedir la página siguiente (null si no hay más).
+    private String tokenCambios; // Token para pedir los cambios posteriores a la primera página (null si no hay).
+    private static final Duration TIEMPO_MAXIMO_CARGA = Duration.ofSeconds(30); // Espera máxima de cada carga.
+    private CompletableFuture<Page<EmployeeSummary>> cargaActual; // Carga de página en curso (para cancelarla si se reemplaza).
 
     // Paneles auxiliares para organizar la interfaz (declarados como atributos de instancia)
     private JPanel pnlBusqueda;
@@ -73,10 +100,29 @@ public class EmpleadoView extends JFrame {
      * y carga los datos iniciales de cargos y empleados.
      */
     public EmpleadoView() {
-        empleadoDAO = new EmployeeDAO(); // Instancia el DAO para empleados.
-        cargoDAO = new PositionDAO(); // Instancia el DAO para cargos.
+        empleadoDAO = EmployeeDAO.getInstance(); // Obtiene el DAO compartido para empleados.
+        cargoDAO = PositionDAO.getInstance(); // Obtiene el DAO compartido para cargos.
+        asyncDAO = AsyncDAO.getInstance(); // Obtiene la fachada asíncrona compartida.
+        long intervaloEscritura = Long.getLong("gise.employeeWriteBehind.intervalMillis", 0L);
+        if (intervaloEscritura > 0) {
+            escrituraDiferida = new EmployeeWriteBehind(intervaloEscritura, new EmployeeWriteBehind.Listener() {
+                @Override
+                public void onFlush(List<Employee> empleados) {
+                    SwingUtilities.invokeLater(() -> refrescarCambios()); // Trae las versiones nuevas.
+                }
+
+                @Override
+                public void onFailure(List<Employee> empleados, SQLException error) {
+                    SwingUtilities.invokeLater(() -> {
+                        mostrarError("No se guardaron " + empleados.size() + " empleado(s): " + error.getMessage());
+                        cargarPrimeraPagina(); // La tabla mostraba los cambios descartados.
+                    });
+                }
+            });
+        }
         initComponents(); // Llama al método para inicializar todos los componentes de la UI.
         configurarTabla(); // Llama al método para establecer el modelo y apariencia de la tabla.
+        // Los cargos y los empleados son independientes: se piden a la vez y cada uno se muestra al llegar.
         cargarCargos(); // Llama al método para poblar el ComboBox de cargos.
         cargarDatos(); // Llama al método para cargar los datos de empleados en la tabla.
     }
@@ -99,6 +145,13 @@ public class EmpleadoView extends JFrame {
                 // Aunque DISPOSE_ON_CLOSE maneja el cierre, esta es una buena práctica
                 // para añadir lógica adicional antes de que la ventana se destruya.
                 System.out.println("Cerrando ventana de Gestión de Empleados - Regresando al menú principal");
+                if (escrituraDiferida != null) {
+                    try {
+                        escrituraDiferida.close(); // Guarda las ediciones que todavía están en la cola.
+                    } catch (SQLException ex) {
+                        mostrarError("Error al guardar los cambios pendientes: " + ex.getMessage());
+                    }
+                }
             }
         });
 
@@ -129,10 +182,13 @@ public class EmpleadoView extends JFrame {
         btnNuevo = new JButton("Nuevo"); // Botón para añadir un nuevo empleado.
         btnEditar = new JButton("Editar"); // Botón para editar un empleado existente.
         btnEliminar = new JButton("Eliminar"); // Botón para eliminar un empleado.
+        btnCargarMas = new JButton("Cargar más"); // Botón para traer la siguiente página de empleados.
+        btnCargarMas.setEnabled(false); // Se habilita solo cuando hay más páginas.
 
         pnlBotonesTabla.add(btnNuevo); // Añade el botón Nuevo al panel de botones de la tabla.
         pnlBotonesTabla.add(btnEditar); // Añade el botón Editar al panel.
         pnlBotonesTabla.add(btnEliminar); // Añade el botón Eliminar al panel.
+        pnlBotonesTabla.add(btnCargarMas); // Añade el botón Cargar más al panel.
 
         pnlTabla.add(scrollTabla, BorderLayout.CENTER); // Añade el scroll pane con la tabla al centro del panel de tabla.
         pnlTabla.add(pnlBotonesTabla, BorderLayout.SOUTH); // Añade el panel de botones al sur del panel de tabla.
@@ -272,6 +328,7 @@ public class EmpleadoView extends JFrame {
         btnNuevo.addActionListener(e -> nuevoEmpleado()); // Llama a nuevoEmpleado() al hacer clic.
         btnEditar.addActionListener(e -> editarEmpleado()); // Llama a editarEmpleado() al hacer clic.
         btnEliminar.addActionListener(e -> eliminarEmpleado()); // Llama a eliminarEmpleado() al hacer clic.
+        btnCargarMas.addActionListener(e -> cargarMas()); // Llama a cargarMas() para traer la siguiente página.
 
         // Eventos de los botones del formulario (Guardar, Cancelar).
         btnGuardar.addActionListener(e -> guardarEmpleado()); // Llama a guardarEmpleado() al hacer clic.
@@ -291,31 +348,29 @@ public class EmpleadoView extends JFrame {
      * y los añade al ComboBox de cargos.
      */
     private void cargarCargos() {
-        try {
-            ArrayList<Position> cargos = cargoDAO.getAll(); // Obtiene todos los cargos desde el DAO.
-            cmbCargo.removeAllItems(); // Elimina todos los elementos actuales del ComboBox.
-            cmbCargo.addItem(null); // Añade una opción vacía o nula al inicio.
-            for (Position cargo : cargos) { // Itera sobre la lista de cargos.
-                cmbCargo.addItem(cargo); // Añade cada cargo al ComboBox.
-            }
-        } catch (SQLException e) {
-            mostrarError("Error al cargar los cargos: " + e.getMessage()); // Muestra un mensaje de error si falla la carga.
-        }
+        // La consulta se hace en segundo plano; el ComboBox se actualiza en el hilo de eventos.
+        // Solo se piden el ID y el título: el ComboBox no muestra la descripción.
+        asyncDAO.positions(PositionDAO::listTitles, TIEMPO_MAXIMO_CARGA).whenComplete((cargos, error) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        mostrarError("Error al cargar los cargos: " + mensajeDe(error)); // Muestra un mensaje de error si falla la carga.
+                        return;
+                    }
+                    cmbCargo.removeAllItems(); // Elimina todos los elementos actuales del ComboBox.
+                    cmbCargo.addItem(null); // Añade una opción vacía o nula al inicio.
+                    for (PositionTitle cargo : cargos) { // Itera sobre la lista de cargos.
+                        cmbCargo.addItem(cargo); // Añade cada cargo al ComboBox.
+                    }
+                }));
     }
 
     /**
-     * Carga todos los empleados desde la base de datos y los muestra en la tabla.
-     * Utiliza el método `search` del DAO con una cadena vacía para obtener todos los registros.
+     * Carga la primera página de empleados desde la base de datos y la muestra en la tabla.
+     * Las páginas siguientes se traen bajo demanda con el botón "Cargar más".
      */
     private void cargarDatos() {
-        try {
-            // Como no hay un método getAll explícito en EmployeeDAO, se usa search con cadena vacía
-            // para simular la obtención de todos los empleados.
-            ArrayList<Employee> empleados = empleadoDAO.search("");
-            actualizarTabla(empleados); // Llama a actualizarTabla para poblar la JTable.
-        } catch (SQLException e) {
-            mostrarError("Error al cargar los datos: " + e.getMessage()); // Muestra un error si la carga falla.
-        }
+        terminoActual = ""; // Sin término de búsqueda se listan todos los empleados.
+        cargarPrimeraPagina(); // Llama a cargarPrimeraPagina para poblar la JTable.
     }
 
     /**
@@ -325,43 +380,182 @@ public class EmpleadoView extends JFrame {
     private void buscarEmpleados() {
         String termino = txtBuscar.getText().trim(); // Obtiene el texto de búsqueda y elimina espacios en blanco.
 
-        try {
-            ArrayList<Employee> empleados = empleadoDAO.search(termino); // Realiza la búsqueda a través del DAO.
-            actualizarTabla(empleados); // Actualiza la tabla con los empleados encontrados.
-        } catch (SQLException e) {
-            mostrarError("Error al buscar: " + e.getMessage()); // Muestra un error si la búsqueda falla.
-        }
+        terminoActual = termino;
+        cargarPrimeraPagina(); // Muestra la primera página de empleados encontrados.
     }
 
     /**
-     * Actualiza el `modeloTabla` con la lista de empleados proporcionada,
-     * limpiando la tabla existente y añadiendo nuevas filas.
-     * @param empleados La lista de objetos Employee a mostrar en la tabla.
+     * Agrega a la tabla la siguiente página del listado o búsqueda actual.
      */
-    private void actualizarTabla(ArrayList<Employee> empleados) {
+    private void cargarMas() {
+        cargarPagina();
+    }
+
+    /**
+     * Limpia la tabla y carga la primera página para el término actual.
+     */
+    private void cargarPrimeraPagina() {
+        if (cargaActual != null) {
+            cargaActual.cancel(true); // La carga anterior ya no corresponde a lo que se va a mostrar.
+        }
         modeloTabla.setRowCount(0); // Elimina todas las filas existentes en la tabla.
-        for (Employee empleado : empleados) { // Itera sobre cada empleado en la lista.
-            // Obtener el nombre del cargo para mostrarlo en la tabla (ya que la tabla muestra nombres, no IDs).
-            String nombreCargo = "";
-            try {
-                Position cargo = cargoDAO.getById(empleado.getPositionId()); // Busca el objeto Position por su ID.
-                if (cargo != null) {
-                    nombreCargo = cargo.getTitle(); // Obtiene el título del cargo.
-                }
-            } catch (SQLException e) {
-                nombreCargo = "Error al cargar"; // Si hay un error al cargar el cargo, muestra un mensaje.
+        tokenSiguiente = null;
+        tokenCambios = null; // Los cambios pedidos para las filas anteriores ya no corresponden.
+        cargarPagina();
+    }
+
+    /**
+     * Pide en segundo plano la página que sigue a la última mostrada y la agrega a la tabla
+     * cuando llega. Si mientras tanto se inició otra carga, el resultado se descarta.
+     */
+    private void cargarPagina() {
+        String termino = terminoActual;
+        String token = tokenSiguiente;
+        btnCargarMas.setEnabled(false); // Evita pedir la misma página dos veces mientras se carga.
+
+        // Con la primera página se pide el token de cambios, antes de leerla: lo que cambie
+        // mientras tanto llega en el próximo refresco.
+        String[] cambios = new String[1];
+        // La consulta trae solo las columnas del listado, con el título del cargo de cada empleado.
+        // Las páginas se leen en la base principal, igual que el token: en una réplica atrasada
+        // podría faltar una fila anterior al token, que changesSince ya no entregaría.
+        CompletableFuture<Page<EmployeeSummary>> carga = asyncDAO.employees(dao -> {
+            if (token == null) {
+                cambios[0] = dao.currentChangeToken();
+            }
+            return dao.listSummariesFromPrimary(termino, TAMANIO_PAGINA, token);
+        }, TIEMPO_MAXIMO_CARGA);
+        cargaActual = carga;
+        carga.whenComplete((pagina, error) -> SwingUtilities.invokeLater(() -> {
+            if (carga != cargaActual || carga.isCancelled()) {
+                return; // Fue reemplazada por una carga más reciente.
+            }
+            if (error != null) {
+                mostrarError("Error al cargar los empleados: " + mensajeDe(error));
+                btnCargarMas.setEnabled(tokenSiguiente != null);
+                return;
             }
+            actualizarTabla(pagina.getItems()); // Agrega las filas de la página a la tabla.
+            tokenSiguiente = pagina.getNextToken();
+            if (token == null) {
+                tokenCambios = cambios[0];
+            }
+            btnCargarMas.setEnabled(pagina.hasMore()); // Solo se puede pedir otra página si quedan resultados.
+        }));
+    }
 
-            // Crea una fila de datos para la tabla.
-            Object[] fila = {
-                    empleado.getId(), // ID del empleado.
-                    empleado.getName(), // Nombre del empleado.
-                    nombreCargo, // Nombre del cargo.
-                    formatoFecha.format(empleado.getHireDate()), // Fecha de contratación formateada.
-                    empleado.getFormattedSalary() // Salario formateado (con símbolo de moneda).
-            };
-            modeloTabla.addRow(fila); // Añade la fila al modelo de la tabla.
+    /**
+     * Pide en segundo plano los empleados que cambiaron desde la última carga y los aplica a la
+     * tabla, en lugar de volver a cargar la primera página. Si la tabla se recargó mientras
+     * tanto, el resultado se descarta.
+     */
+    private void refrescarCambios() {
+        String token = tokenCambios;
+        if (token == null) {
+            cargarPrimeraPagina(); // Todavía no hay un token con el cual pedir los cambios.
+            return;
         }
+        asyncDAO.employees(dao -> dao.changesSince(token), TIEMPO_MAXIMO_CARGA)
+                .whenComplete((cambios, error) -> SwingUtilities.invokeLater(() -> {
+                    if (!token.equals(tokenCambios)) {
+                        return; // La tabla se recargó o ya se aplicaron otros cambios.
+                    }
+                    if (error != null) {
+                        mostrarError("Error al actualizar los empleados: " + mensajeDe(error));
+                        return;
+                    }
+                    aplicarCambios(cambios);
+                    tokenCambios = cambios.getToken();
+                }));
+    }
+
+    /**
+     * Aplica los cambios a las filas cargadas. Un empleado nuevo, o que cambió de nombre, solo se
+     * agrega si queda entre las filas ya cargadas; si va después de ellas, llegará con las
+     * páginas siguientes.
+     */
+    private void aplicarCambios(ChangeSet<Employee> cambios) {
+        for (Employee cambiado : cambios.getChanged()) {
+            reemplazarFila(EmployeeSummary.of(cambiado));
+        }
+        for (int id : cambios.getDeletedIds()) {
+            quitarFila(id);
+        }
+    }
+
+    /**
+     * Reemplaza la fila del empleado por sus datos nuevos, en la posición que le corresponde.
+     */
+    private void reemplazarFila(EmployeeSummary empleado) {
+        boolean todoCargado = tokenSiguiente == null && (cargaActual == null || cargaActual.isDone());
+        quitarFila(empleado.id());
+        if (!empleado.name().toLowerCase().contains(terminoActual.toLowerCase())) {
+            return; // Ya no coincide con la búsqueda actual.
+        }
+        int fila = posicionPorNombre(empleado);
+        if (fila < modeloTabla.getRowCount() || todoCargado) {
+            modeloTabla.insertRow(fila, filaDe(empleado));
+        }
+    }
+
+    private void quitarFila(int id) {
+        for (int fila = 0; fila < modeloTabla.getRowCount(); fila++) {
+            if ((int) modeloTabla.getValueAt(fila, 0) == id) {
+                modeloTabla.removeRow(fila);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Devuelve la fila donde va el empleado según el orden de las páginas (nombre e id).
+     */
+    private int posicionPorNombre(EmployeeSummary empleado) {
+        int fila = 0;
+        while (fila < modeloTabla.getRowCount()) {
+            int orden = String.CASE_INSENSITIVE_ORDER.compare(modeloTabla.getValueAt(fila, 1).toString(), empleado.name());
+            if (orden > 0 || (orden == 0 && (int) modeloTabla.getValueAt(fila, 0) > empleado.id())) {
+                break;
+            }
+            fila++;
+        }
+        return fila;
+    }
+
+    /**
+     * Obtiene un mensaje legible del error con el que terminó una carga asíncrona.
+     */
+    private static String mensajeDe(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (causa instanceof TimeoutException) {
+            return "la operación superó el tiempo máximo de espera.";
+        }
+        return causa.getMessage();
+    }
+
+    /**
+     * Agrega al `modeloTabla` una fila por cada empleado de la lista proporcionada.
+     * @param empleados La lista de objetos Employee a mostrar en la tabla.
+     */
+    private void actualizarTabla(List<EmployeeSummary> empleados) {
+        for (EmployeeSummary empleado : empleados) { // Itera sobre cada empleado en la lista.
+            modeloTabla.addRow(filaDe(empleado)); // Añade la fila al modelo de la tabla.
+        }
+    }
+
+    /**
+     * Crea la fila de datos de la tabla para un empleado.
+     */
+    private Object[] filaDe(EmployeeSummary empleado) {
+        // El título del cargo viene en la misma consulta (la tabla muestra nombres, no IDs).
+        String nombreCargo = empleado.positionTitle() != null ? empleado.positionTitle() : "";
+        return new Object[]{
+                empleado.id(), // ID del empleado.
+                empleado.name(), // Nombre del empleado.
+                nombreCargo, // Nombre del cargo.
+                FORMATO_FECHA_TABLA.format(empleado.hireDate()), // Fecha de contratación formateada.
+                empleado.formattedSalary() // Salario formateado (con símbolo de moneda).
+        };
     }
 
     /**
@@ -415,10 +609,13 @@ public class EmpleadoView extends JFrame {
                 int id = Integer.parseInt(txtId.getText()); // Obtiene el ID del empleado desde el campo de texto.
                 Employee empleado = new Employee(); // Crea un objeto Employee.
                 empleado.setId(id); // Establece el ID al objeto.
+                if (escrituraDiferida != null) {
+                    escrituraDiferida.discard(id); // Una edición pendiente ya no tiene sentido.
+                }
 
                 if (empleadoDAO.delete(empleado)) { // Intenta eliminar el empleado a través del DAO.
                     mostrarInformacion("Empleado eliminado exitosamente."); // Muestra mensaje de éxito.
-                    cargarDatos(); // Recarga los datos en la tabla.
+                    refrescarCambios(); // Quita de la tabla la fila eliminada.
                     limpiarFormulario(); // Limpia el formulario.
                 } else {
                     mostrarError("No se pudo eliminar el empleado."); // Muestra error si no se eliminó.
@@ -443,8 +640,8 @@ public class EmpleadoView extends JFrame {
             Employee empleado = new Employee(); // Crea un nuevo objeto Employee.
             empleado.setName(txtNombre.getText().trim()); // Establece el nombre.
 
-            Position cargoSeleccionado = (Position) cmbCargo.getSelectedItem(); // Obtiene el cargo seleccionado del ComboBox.
-            empleado.setPositionId(cargoSeleccionado.getId()); // Establece el ID del cargo.
+            PositionTitle cargoSeleccionado = (PositionTitle) cmbCargo.getSelectedItem(); // Obtiene el cargo seleccionado del ComboBox.
+            empleado.setPositionId(cargoSeleccionado.id()); // Establece el ID del cargo.
 
             Date fechaContratacion = formatoFecha.parse(txtFechaContratacion.getText().trim()); // Parsea la fecha.
             empleado.setHireDate(fechaContratacion); // Establece la fecha de contratación.
@@ -454,6 +651,15 @@ public class EmpleadoView extends JFrame {
 
             if (modoEdicion) { // Si está en modo edición.
                 empleado.setId(Integer.parseInt(txtId.getText())); // Obtiene el ID del empleado a actualizar.
+                empleado.setVersion(versionSeleccionada); // Versión leída al seleccionarlo.
+                if (escrituraDiferida != null) {
+                    // Se encola y se muestra de inmediato; la cola lo guarda junto con las ediciones siguientes.
+                    empleado.setPositionTitle(cargoSeleccionado.title());
+                    escrituraDiferida.enqueue(empleado);
+                    reemplazarFila(EmployeeSummary.of(empleado));
+                    cancelarOperacion();
+                    return;
+                }
                 if (empleadoDAO.update(empleado)) { // Intenta actualizar el empleado.
                     mostrarInformacion("Empleado actualizado exitosamente."); // Mensaje de éxito.
                 } else {
@@ -468,9 +674,14 @@ public class EmpleadoView extends JFrame {
                 }
             }
 
-            cargarDatos(); // Recarga los datos en la tabla para reflejar los cambios.
+            refrescarCambios(); // Aplica a la tabla solo los empleados que cambiaron.
             cancelarOperacion(); // Restablece el formulario.
 
+        } catch (OptimisticLockException e) {
+            // Otro usuario modificó el empleado: se traen sus cambios para que vuelva a editarlo.
+            mostrarAdvertencia(e.getMessage());
+            refrescarCambios();
+            cancelarOperacion();
         } catch (SQLException e) {
             mostrarError("Error al guardar: " + e.getMessage()); // Error de base de datos.
         } catch (ParseException e) {
@@ -500,19 +711,24 @@ public class EmpleadoView extends JFrame {
             try {
                 // Obtiene el ID del empleado desde la primera columna de la fila seleccionada.
                 int id = Integer.parseInt(modeloTabla.getValueAt(filaSeleccionada, 0).toString());
-                Employee empleado = empleadoDAO.getById(id); // Busca el empleado en la base de datos por su ID.
+                // Si tiene una edición que todavía no se guardó, se muestra esa.
+                Employee empleado = escrituraDiferida != null ? escrituraDiferida.getPending(id) : null;
+                if (empleado == null) {
+                    empleado = empleadoDAO.getById(id); // Busca el empleado en la base de datos por su ID.
+                }
 
                 if (empleado != null) { // Si el empleado fue encontrado.
                     txtId.setText(String.valueOf(empleado.getId())); // Muestra el ID.
+                    versionSeleccionada = empleado.getVersion(); // Guarda la versión para la actualización.
                     txtNombre.setText(empleado.getName()); // Muestra el nombre.
                     txtFechaContratacion.setText(formatoFecha.format(empleado.getHireDate())); // Muestra la fecha formateada.
                     txtSalario.setText(String.valueOf(empleado.getSalary())); // Muestra el salario.
 
                     // Selecciona el cargo correspondiente en el ComboBox.
                     for (int i = 0; i < cmbCargo.getItemCount(); i++) {
-                        Position cargo = cmbCargo.getItemAt(i); // Obtiene cada ítem del ComboBox.
+                        PositionTitle cargo = cmbCargo.getItemAt(i); // Obtiene cada ítem del ComboBox.
                         // Comprueba si el ítem no es nulo y su ID coincide con el ID de posición del empleado.
-                        if (cargo != null && cargo.getId() == empleado.getPositionId()) {
+                        if (cargo != null && cargo.id() == empleado.getPositionId()) {
                             cmbCargo.setSelectedIndex(i); // Selecciona ese ítem.
                             break; // Sale del bucle una vez encontrado.
                         }
@@ -51,7 +51,7 @@ public class LoginForm extends JDialog {
      */
     public LoginForm(MainForm mainForm) {
         this.mainForm = mainForm; // Asigna la referencia a la ventana principal.
-        userDAO = new UserDAO(); // Instancia el UserDAO para las operaciones de base de datos.
+        userDAO = UserDAO.getInstance(); // Obtiene el UserDAO compartido para las operaciones de base de datos.
 
         initializeComponents(); // Llama al método para inicializar todos los componentes de la UI.
         setupLayout(); // Llama al método para configurar la disposición de los componentes.
@@ -1,5 +1,6 @@
 package Gise.presentacion;
 
+import Gise.persistencia.AsyncDAO; // Importa la fachada que ejecuta las operaciones de los DAO en segundo plano.
 import Gise.persistencia.UserDAO; // Importa la interfaz o clase UserDAO, que define las operaciones de acceso a datos para la entidad User.
 
 import javax.swing.*; // Importa el paquete Swing, que proporciona clases para crear interfaces gráficas de usuario.
@@ -9,7 +10,11 @@ import Gise.utils.CUD; // Importa el enum  CUD (Create, Update, Delete).
 
 import java.awt.event.KeyAdapter; // Importa la clase KeyAdapter, una clase adaptadora para recibir eventos de teclado.
 import java.awt.event.KeyEvent; // Importa la clase KeyEvent, que representa un evento de teclado.
+import java.time.Duration; // Representa el tiempo máximo de una búsqueda.
 import java.util.ArrayList; // Importa la clase ArrayList, una implementación de la interfaz List que permite almacenar colecciones dinámicas de objetos.
+import java.util.concurrent.CompletableFuture; // Representa el resultado de una búsqueda que se ejecuta en segundo plano.
+import java.util.concurrent.CompletionException; // Envuelve el error con el que terminó una búsqueda en segundo plano.
+import java.util.concurrent.TimeoutException; // Indica que una búsqueda superó su tiempo máximo.
 
 
 public class UserReadingForm extends JDialog {
@@ -21,12 +26,16 @@ public class UserReadingForm extends JDialog {
     private JButton btnDelete;
 
     private UserDAO userDAO; // Instancia de UserDAO para realizar operaciones de base de datos de usuarios.
+    private AsyncDAO asyncDAO; // Ejecuta las búsquedas fuera del hilo de eventos de Swing.
+    private CompletableFuture<ArrayList<User>> busquedaActual; // Búsqueda en curso; se cancela si llega otra tecla.
+    private static final Duration TIEMPO_MAXIMO_BUSQUEDA = Duration.ofSeconds(10); // Plazo de cada búsqueda.
     private MainForm mainForm; // Referencia a la ventana principal de la aplicación.
 
     // Constructor de la clase UserReadingForm. Recibe una instancia de MainForm como parámetro.
     public UserReadingForm(MainForm mainForm) {
         this.mainForm = mainForm; // Asigna la instancia de MainForm recibida a la variable local.
-        userDAO = new UserDAO(); // Crea una nueva instancia de UserDAO al instanciar este formulario.
+        userDAO = UserDAO.getInstance(); // Obtiene la instancia compartida de UserDAO.
+        asyncDAO = AsyncDAO.getInstance(); // Obtiene la fachada asíncrona compartida.
         setContentPane(mainPanel); // Establece el panel principal como el contenido de este diálogo.
         setModal(true); // Hace que este diálogo sea modal, bloqueando la interacción con la ventana principal hasta que se cierre.
         setTitle("Buscar Usuario"); // Establece el título de la ventana del diálogo.
@@ -43,6 +52,7 @@ public class UserReadingForm extends JDialog {
                     // Llama al método search para buscar usuarios según el texto ingresado.
                     search(txtName.getText());
                 } else {
+                    cancelarBusqueda(); // Ya no hay nada que buscar.
                     // Si el campo de texto está vacío, crea un modelo de tabla vacío y lo asigna a la tabla de usuarios para limpiarla.
                     DefaultTableModel emptyModel = new DefaultTableModel();
                     tableUsers.setModel(emptyModel);
@@ -94,20 +104,39 @@ public class UserReadingForm extends JDialog {
         });
     }
     private void search(String query) {
-        try {
-            // Llama al método 'search' del UserDAO para buscar usuarios cuya información
-            // coincida con la cadena de búsqueda 'query'. La implementación específica
-            ArrayList<User> users = userDAO.search(query);
+        // Cada tecla reemplaza a la búsqueda anterior: se cancela para que deje de ejecutarse en el servidor.
+        cancelarBusqueda();
+
+        // Llama al método 'search' del UserDAO en segundo plano para buscar usuarios cuya información
+        // coincida con la cadena de búsqueda 'query', con un tiempo máximo por búsqueda.
+        CompletableFuture<ArrayList<User>> busqueda = asyncDAO.users(dao -> dao.search(query), TIEMPO_MAXIMO_BUSQUEDA);
+        busquedaActual = busqueda;
+        busqueda.whenComplete((users, ex) -> SwingUtilities.invokeLater(() -> {
+            if (busqueda != busquedaActual || busqueda.isCancelled()) {
+                return; // Una búsqueda más reciente la reemplazó.
+            }
+            if (ex != null) {
+                // Captura cualquier excepción que ocurra durante el proceso de búsqueda
+                // (por ejemplo, errores de base de datos o que se supere el tiempo máximo).
+                Throwable causa = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                String mensaje = causa instanceof TimeoutException
+                        ? "La búsqueda superó el tiempo máximo de espera." : causa.getMessage();
+                JOptionPane.showMessageDialog(null,
+                        mensaje,
+                        "ERROR", JOptionPane.ERROR_MESSAGE); // Muestra un mensaje de error al usuario.
+                return; // Sale después de mostrar el error.
+            }
             // Llama al método 'createTable' para actualizar la tabla de usuarios
             // en la interfaz gráfica con los resultados de la búsqueda.
             createTable(users);
-        } catch (Exception ex) {
-            // Captura cualquier excepción que ocurra durante el proceso de búsqueda
-            // (por ejemplo, errores de base de datos).
-            JOptionPane.showMessageDialog(null,
-                    ex.getMessage(),
-                    "ERROR", JOptionPane.ERROR_MESSAGE); // Muestra un mensaje de error al usuario.
-            return; // Sale del método 'search' después de mostrar el error.
+        }));
+    }
+
+    // Cancela la búsqueda en curso, si la hay.
+    private void cancelarBusqueda() {
+        if (busquedaActual != null) {
+            busquedaActual.cancel(true);
+            busquedaActual = null;
         }
     }
     public void createTable(ArrayList<User> users) {
@@ -30,7 +30,7 @@ public class UserWriteForm extends JDialog {
         this.cud = cud; // Asigna el tipo de operación CUD recibida a la variable local 'cud'.
         this.en = user; // Asigna el objeto User recibido a la variable local 'en'.
         this.mainForm = mainForm; // Asigna la instancia de MainForm recibida a la variable local 'mainForm'.
-        userDAO = new UserDAO(); // Crea una nueva instancia de UserDAO al instanciar este formulario.
+        userDAO = UserDAO.getInstance(); // Obtiene la instancia compartida de UserDAO.
         setContentPane(mainPanel); // Establece el panel principal como el contenido de este diálogo.
         setModal(true); // Hace que este diálogo sea modal, bloqueando la interacción con la ventana principal hasta que se cierre.
         init(); // Llama al método 'init' para inicializar y configure the form based on 'cud'
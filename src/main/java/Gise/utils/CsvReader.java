@@ -0,0 +1,130 @@
+package Gise.utils;
+
+import java.io.IOException; // Error al leer el archivo de origen.
+import java.io.Reader; // Origen de caracteres del archivo CSV.
+import java.util.ArrayList; // Lista de campos de cada registro.
+import java.util.List; // Interfaz de la lista de campos devuelta.
+
+/**
+ * Lector de archivos CSV (RFC 4180) que procesa un registro a la vez, sin cargar el archivo
+ * completo en memoria. Admite campos entre comillas dobles con comas, saltos de línea y
+ * comillas escapadas ({@code ""}) en su interior.
+ */
+public class CsvReader implements AutoCloseable {
+
+    private final Reader reader; // Origen de los caracteres; conviene que tenga buffer.
+    private final char separator; // Separador de campos (normalmente la coma).
+    private long lineNumber = 1; // Línea en la que se encuentra el lector.
+    private long recordLine; // Línea en la que comenzó el último registro leído.
+    private int pushedBack = -2; // Carácter devuelto al lector (-2 si no hay ninguno).
+
+    public CsvReader(Reader reader) {
+        this(reader, ',');
+    }
+
+    public CsvReader(Reader reader, char separator) {
+        this.reader = reader;
+        this.separator = separator;
+    }
+
+    /**
+     * Lee el siguiente registro.
+     *
+     * @return los campos del registro, o null si se llegó al final del archivo.
+     * @throws IOException si falla la lectura o hay comillas sin cerrar.
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        // Se ignoran las líneas vacías entre registros.
+        while (c == '\r' || c == '\n') {
+            if (c == '\n') {
+                lineNumber++;
+            }
+            c = read();
+        }
+        if (c == -1) {
+            return null;
+        }
+        recordLine = lineNumber;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Comillas sin cerrar en el registro de la línea " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"'); // Comilla escapada.
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        pushedBack = next;
+                    }
+                }
+                if (c != -1) {
+                    lineNumber++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Devuelve la línea del archivo en la que comenzó el último registro leído.
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    /**
+     * Escapa un valor para escribirlo como campo de un archivo CSV.
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
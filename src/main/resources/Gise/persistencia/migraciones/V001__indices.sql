@@ -0,0 +1,26 @@
+-- Índices para las consultas más frecuentes de los DAO.
+-- Cada índice se crea solo si no existe, para poder aplicar el script sobre bases que ya
+-- tengan alguno creado a mano.
+-- UserDAO.authenticate (WHERE email = ? AND ... AND status = 1) ya usa el índice único de
+-- Users.email, por lo que no necesita uno nuevo.
+
+-- EmployeeDAO.getByPosition / streamByPosition: WHERE positionId = ?
+-- (también lo usa la clave foránea al eliminar un cargo)
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Employees_positionId' AND object_id = OBJECT_ID('dbo.Employees'))
+    CREATE INDEX IX_Employees_positionId ON dbo.Employees (positionId);
+GO
+
+-- EmployeeDAO.search / searchPage: WHERE name LIKE ? ORDER BY name, id
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Employees_name' AND object_id = OBJECT_ID('dbo.Employees'))
+    CREATE INDEX IX_Employees_name ON dbo.Employees (name) INCLUDE (positionId, hireDate, salary);
+GO
+
+-- PositionDAO.getAll / search / searchPage: ORDER BY title
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Positions_title' AND object_id = OBJECT_ID('dbo.Positions'))
+    CREATE INDEX IX_Positions_title ON dbo.Positions (title);
+GO
+
+-- UserDAO.search / searchPage: WHERE name LIKE ? ORDER BY name, id
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Users_name' AND object_id = OBJECT_ID('dbo.Users'))
+    CREATE INDEX IX_Users_name ON dbo.Users (name) INCLUDE (email, status);
+GO
@@ -0,0 +1,16 @@
+-- Columna de versión para el control de concurrencia optimista.
+-- SQL Server cambia el valor de una columna rowversion en cada modificación de la fila, así que
+-- las actualizaciones de los DAO incluyen "AND version = ?" para detectar cambios de otro usuario.
+-- Agregar la columna reescribe la tabla; en tablas grandes conviene aplicarlo fuera de horario.
+
+IF COL_LENGTH('dbo.Employees', 'version') IS NULL
+    ALTER TABLE dbo.Employees ADD version ROWVERSION;
+GO
+
+IF COL_LENGTH('dbo.Users', 'version') IS NULL
+    ALTER TABLE dbo.Users ADD version ROWVERSION;
+GO
+
+IF COL_LENGTH('dbo.Positions', 'version') IS NULL
+    ALTER TABLE dbo.Positions ADD version ROWVERSION;
+GO
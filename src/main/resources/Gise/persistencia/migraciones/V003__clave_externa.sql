@@ -0,0 +1,19 @@
+-- Clave externa (identificador en el sistema de RR. HH. de origen) para las sincronizaciones
+-- con upsertAll. Es opcional: los registros creados desde la aplicación no la tienen, por eso
+-- el índice único solo incluye las filas con clave.
+
+IF COL_LENGTH('dbo.Employees', 'externalKey') IS NULL
+    ALTER TABLE dbo.Employees ADD externalKey VARCHAR(50) NULL;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_Employees_externalKey' AND object_id = OBJECT_ID('dbo.Employees'))
+    CREATE UNIQUE INDEX UX_Employees_externalKey ON dbo.Employees (externalKey) WHERE externalKey IS NOT NULL;
+GO
+
+IF COL_LENGTH('dbo.Positions', 'externalKey') IS NULL
+    ALTER TABLE dbo.Positions ADD externalKey VARCHAR(50) NULL;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'UX_Positions_externalKey' AND object_id = OBJECT_ID('dbo.Positions'))
+    CREATE UNIQUE INDEX UX_Positions_externalKey ON dbo.Positions (externalKey) WHERE externalKey IS NOT NULL;
+GO
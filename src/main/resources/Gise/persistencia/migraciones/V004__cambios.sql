@@ -0,0 +1,25 @@
+-- Seguimiento de cambios para changesSince: las filas modificadas se encuentran por su columna
+-- version (rowversion) y las eliminadas por las marcas que dejan los DAO en DeletedRows.
+-- Las marcas se escriben desde los DAO (OUTPUT ... INTO) y no con triggers, porque las
+-- sentencias con OUTPUT sin INTO de los DAO no se pueden usar en tablas con triggers.
+
+IF OBJECT_ID('dbo.DeletedRows') IS NULL
+    CREATE TABLE dbo.DeletedRows (
+        tableName VARCHAR(50) NOT NULL,
+        id INT NOT NULL,
+        version ROWVERSION NOT NULL,
+        deletedAt DATETIME2 NOT NULL DEFAULT SYSUTCDATETIME()
+    );
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_DeletedRows_tableName_version' AND object_id = OBJECT_ID('dbo.DeletedRows'))
+    CREATE CLUSTERED INDEX IX_DeletedRows_tableName_version ON dbo.DeletedRows (tableName, version);
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Employees_version' AND object_id = OBJECT_ID('dbo.Employees'))
+    CREATE INDEX IX_Employees_version ON dbo.Employees (version);
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Positions_version' AND object_id = OBJECT_ID('dbo.Positions'))
+    CREATE INDEX IX_Positions_version ON dbo.Positions (version);
+GO
@@ -0,0 +1,10 @@
+-- EmployeeDAO.salaryStatsByPosition: GROUP BY positionId con COUNT/SUM/MIN/MAX/AVG(salary),
+-- filtrando opcionalmente por hireDate.
+-- El índice por cargo pasa a incluir salary y hireDate, así la consulta recorre solo el índice
+-- (ordenado por cargo) sin leer las filas de la tabla.
+IF EXISTS (SELECT 1 FROM sys.indexes WHERE name = 'IX_Employees_positionId' AND object_id = OBJECT_ID('dbo.Employees'))
+    CREATE INDEX IX_Employees_positionId ON dbo.Employees (positionId) INCLUDE (salary, hireDate)
+        WITH (DROP_EXISTING = ON);
+ELSE
+    CREATE INDEX IX_Employees_positionId ON dbo.Employees (positionId) INCLUDE (salary, hireDate);
+GO
@@ -5,7 +5,20 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Connection; // Importa la clase Connection del paquete java.sql, que
+import java.sql.DriverManager; // Abre las conexiones de los administradores creados en las pruebas de réplica.
+import java.sql.PreparedStatement; // Importa la clase PreparedStatement para ejecutar consultas parametrizadas.
+import java.sql.ResultSet; // Importa la clase ResultSet para leer los resultados de las consultas.
 import java.sql.SQLException; // Importa la clase SQLException del paquete java.sql,
+import java.sql.SQLTimeoutException; // Importa la excepción que indica que una consulta superó su plazo.
+import java.time.Duration; // Representa el plazo de un QueryScope.
+import java.util.List; // Elementos de los lotes de prueba.
+import java.util.concurrent.CountDownLatch; // Permite esperar a que la consulta de otro hilo comience.
+import java.util.concurrent.ExecutorService; // Ejecuta la consulta que se cancela en otro hilo.
+import java.util.concurrent.Executors; // Crea el ejecutor de la prueba.
+import java.util.concurrent.Future; // Resultado de la consulta ejecutada en otro hilo.
+import java.util.concurrent.TimeUnit; // Unidades de tiempo para las esperas.
+import java.util.concurrent.atomic.AtomicInteger; // Cuenta las conexiones abiertas a la réplica.
+import java.util.concurrent.atomic.AtomicReference; // Comparte el ámbito abierto por el otro hilo.
 
 import static org.junit.jupiter.api.Assertions.*; // Importa todos los métodos estáticos de Assertions para aserciones de prueba.
 
@@ -48,5 +61,239 @@ class ConnectionManagerTest {
             conn.close(); // Cierra la conexión después de la prueba.
         }
     }
-}
 
+    @Test
+    void reuseConnectionFromPool() throws SQLException {
+        // Obtiene una conexión, guarda la conexión física real y la devuelve al pool.
+        Connection first = connectionManager.connect();
+        Connection physical = first.unwrap(Connection.class);
+        connectionManager.disconnect();
+
+        // Al pedir otra conexión, el pool debe entregar la misma conexión física en lugar de abrir una nueva.
+        Connection second = connectionManager.connect();
+        assertSame(physical, second.unwrap(Connection.class), "El pool debe reutilizar la conexión física");
+        connectionManager.disconnect();
+
+        // La conexión devuelta ya no debe poder usarse.
+        assertTrue(second.isClosed(), "La conexión devuelta al pool debe verse como cerrada");
+    }
+
+    @Test
+    void nestedConnectSharesConnection() throws SQLException {
+        // Dos llamadas a connect() en el mismo hilo deben compartir la misma conexión,
+        // que solo vuelve al pool cuando se llama a disconnect() la misma cantidad de veces.
+        Connection outer = connectionManager.connect();
+        Connection inner = connectionManager.connect();
+        assertSame(outer, inner, "El mismo hilo debe recibir la misma conexión");
+
+        connectionManager.disconnect();
+        assertFalse(outer.isClosed(), "La conexión debe seguir abierta mientras quede un uso pendiente");
+
+        connectionManager.disconnect();
+        assertTrue(outer.isClosed(), "La conexión debe volver al pool al liberar el último uso");
+    }
+
+    @Test
+    void statementCacheBenchmark() throws SQLException {
+        // Compara el costo de preparar la misma consulta en cada llamada contra reutilizarla desde la caché.
+        final int iterations = 1000;
+        final String sql = "SELECT id, name, positionId, hireDate, salary FROM Employees WHERE id = ?";
+
+        Connection pooled = connectionManager.connect();
+        Connection physical = pooled.unwrap(Connection.class);
+
+        // Calentamiento para que ambos caminos partan en igualdad de condiciones.
+        for (int i = 0; i < 50; i++) {
+            executeLookup(physical, sql, i);
+            executeLookup(pooled, sql, i);
+        }
+
+        // Sin caché: cada llamada prepara la sentencia sobre la conexión física.
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            executeLookup(physical, sql, i);
+        }
+        long uncachedNanos = System.nanoTime() - start;
+
+        // Con caché: la conexión del pool devuelve la sentencia ya preparada.
+        long hitsBefore = connectionManager.getStatementCacheStats().getHits();
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            executeLookup(pooled, sql, i);
+        }
+        long cachedNanos = System.nanoTime() - start;
+        long hits = connectionManager.getStatementCacheStats().getHits() - hitsBefore;
+
+        System.out.printf("Sin caché: %.1f us/consulta, con caché: %.1f us/consulta, aciertos: %d%n",
+                uncachedNanos / 1000.0 / iterations, cachedNanos / 1000.0 / iterations, hits);
+
+        assertEquals(iterations, hits, "Todas las consultas repetidas deberían resolverse desde la caché");
+    }
+
+    @Test
+    void cachedStatementDropsUnexecutedBatch() throws SQLException {
+        // Un lote interrumpido por una excepción no debe quedar en la sentencia de la caché.
+        Connection conn = connectionManager.connect();
+        try (PreparedStatement ps = conn.prepareStatement("CREATE TABLE #LoteCache (value INT)")) {
+            ps.executeUpdate();
+        }
+        String sql = "INSERT INTO #LoteCache (value) VALUES (?)";
+
+        // El tercer elemento falla después de que los dos primeros ya se agregaron al lote.
+        SQLException ex = assertThrows(SQLException.class, () -> SqlBatch.executeAll(conn, sql, List.of(1, 2, 3), 10,
+                (ps, index, value) -> {
+                    if (value == 3) {
+                        throw new SQLException("Falla simulada");
+                    }
+                    ps.setInt(index, value);
+                }));
+        assertEquals("Falla simulada", ex.getMessage());
+
+        // El lote siguiente sobre la misma conexión solo debe enviar sus propias filas.
+        boolean[] res = SqlBatch.executeAll(conn, sql, List.of(10, 20), 10,
+                (ps, index, value) -> ps.setInt(index, value));
+        assertArrayEquals(new boolean[]{true, true}, res, "Ambas filas deben insertarse");
+
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM #LoteCache");
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            assertEquals(2, rs.getInt(1), "No deben insertarse las filas del lote interrumpido");
+        }
+        try (PreparedStatement ps = conn.prepareStatement("DROP TABLE #LoteCache")) {
+            ps.executeUpdate();
+        }
+    }
+
+    private void executeLookup(Connection connection, String sql, int id) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setInt(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+            }
+        }
+    }
+
+    @Test
+    void queryScopeTimeout() throws SQLException {
+        // Una consulta más lenta que el plazo del ámbito debe terminar por tiempo en el servidor
+        long start = System.nanoTime();
+        try (QueryScope scope = QueryScope.open(Duration.ofSeconds(1));
+             PreparedStatement ps = connectionManager.connect().prepareStatement("WAITFOR DELAY '00:00:10'")) {
+            assertThrows(SQLTimeoutException.class, ps::execute, "La consulta debería superar el plazo.");
+        } finally {
+            connectionManager.disconnect();
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        assertTrue(elapsedMillis < 5_000, "La consulta debería cortarse al vencer el plazo: " + elapsedMillis + " ms");
+
+        // Fuera del ámbito, la misma sentencia en caché vuelve a no tener plazo
+        try (PreparedStatement ps = connectionManager.connect().prepareStatement("WAITFOR DELAY '00:00:10'")) {
+            assertEquals(0, ps.getQueryTimeout(), "La sentencia en caché no debería conservar el plazo.");
+        } finally {
+            connectionManager.disconnect();
+        }
+    }
+
+    @Test
+    void queryScopeCancel() throws Exception {
+        // Cancelar el ámbito desde otro hilo debe detener la consulta en curso
+        AtomicReference<QueryScope> scopeRef = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> result = executor.submit(() -> {
+                long start = System.nanoTime();
+                try (QueryScope scope = QueryScope.open();
+                     PreparedStatement ps = ConnectionManager.getInstance().connect().prepareStatement("WAITFOR DELAY '00:00:30'")) {
+                    scopeRef.set(scope);
+                    started.countDown();
+                    assertThrows(SQLException.class, ps::execute, "La consulta cancelada debería fallar.");
+                } finally {
+                    ConnectionManager.getInstance().disconnect();
+                }
+                return (System.nanoTime() - start) / 1_000_000;
+            });
+
+            assertTrue(started.await(10, TimeUnit.SECONDS), "La consulta debería haber comenzado.");
+            Thread.sleep(500); // Da tiempo a que la consulta llegue al servidor.
+            scopeRef.get().cancel();
+            long elapsedMillis = result.get(20, TimeUnit.SECONDS);
+            assertTrue(elapsedMillis < 10_000, "La consulta debería detenerse al cancelarla: " + elapsedMillis + " ms");
+            assertTrue(scopeRef.get().isCancelled(), "El ámbito debería quedar cancelado.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void readReplicaRouting() throws SQLException {
+        // La "réplica" es la misma base con ApplicationIntent=ReadOnly; alcanza para verificar el ruteo.
+        AtomicInteger replicaConnections = new AtomicInteger();
+        ConnectionManager manager = new ConnectionManager(
+                () -> DriverManager.getConnection(ConnectionManager.STR_CONNECTION),
+                () -> {
+                    replicaConnections.incrementAndGet();
+                    return DriverManager.getConnection(ConnectionManager.STR_CONNECTION + "ApplicationIntent=ReadOnly;");
+                });
+        try {
+            // Una lectura sin conexión previa va a la réplica
+            Connection read = manager.connectForRead();
+            assertEquals(1, replicaConnections.get(), "La lectura debería abrir una conexión a la réplica.");
+            assertEquals(1, manager.getReplicaReadCount(), "La lectura debería contarse como atendida por la réplica.");
+
+            // Una escritura dentro de la lectura usa su propia conexión al principal
+            Connection write = manager.connect();
+            assertNotSame(read, write, "La escritura no debería usar la conexión de la réplica.");
+            manager.disconnect();
+            assertTrue(write.isClosed(), "La conexión al principal debería volver al pool.");
+            assertFalse(read.isClosed(), "La lectura en curso debería seguir con su conexión.");
+            assertSame(read, manager.connectForRead(), "Una lectura anidada debería unirse a la conexión del hilo.");
+            manager.disconnect();
+            manager.disconnect();
+            assertTrue(read.isClosed(), "La conexión a la réplica debería volver al pool.");
+
+            // Dentro de una sesión la lectura usa la conexión de la sesión
+            try (Session session = manager.beginSession()) {
+                assertSame(session.getConnection(), manager.connectForRead(), "La lectura debería unirse a la sesión.");
+                manager.disconnect();
+                session.commit();
+            }
+
+            // Después de confirmar una escritura, las lecturas van al principal por un momento
+            manager.connectForRead();
+            manager.disconnect();
+            assertEquals(1, manager.getReplicaReadCount(), "Tras una escritura no se debería leer de la réplica.");
+        } finally {
+            manager.shutdown();
+        }
+    }
+
+    @Test
+    void readReplicaFallback() throws SQLException {
+        // Si la réplica no responde, la lectura se atiende en el principal
+        AtomicInteger replicaAttempts = new AtomicInteger();
+        ConnectionManager manager = new ConnectionManager(
+                () -> DriverManager.getConnection(ConnectionManager.STR_CONNECTION),
+                () -> {
+                    replicaAttempts.incrementAndGet();
+                    throw new SQLException("La réplica no está disponible.");
+                });
+        try {
+            try (PreparedStatement ps = manager.connectForRead().prepareStatement("SELECT 1");
+                 ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next(), "La lectura debería atenderse en el principal.");
+            } finally {
+                manager.disconnect();
+            }
+            assertEquals(1, manager.getReplicaFailureCount(), "Debería registrarse el fallo de la réplica.");
+
+            // Mientras la réplica se considera caída no se vuelve a intentar
+            manager.connectForRead();
+            manager.disconnect();
+            assertEquals(1, replicaAttempts.get(), "No se debería reintentar la réplica enseguida.");
+            assertEquals(0, manager.getReplicaReadCount(), "Ninguna lectura debería atenderse en la réplica.");
+        } finally {
+            manager.shutdown();
+        }
+    }
+}
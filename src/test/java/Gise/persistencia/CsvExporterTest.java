@@ -0,0 +1,126 @@
+package Gise.persistencia;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import Gise.dominio.Employee;
+import Gise.dominio.Position;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la exportación de tablas a CSV
+ */
+class CsvExporterTest {
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // Las consultas de los DAO requieren el esquema al día (por ejemplo, la columna version)
+        new SchemaMigrator().migrate();
+    }
+
+    @Test
+    void testExportSmallStream() throws IOException {
+        // Verifica el formato de las líneas, el escape de campos y los avisos de avance
+        List<String[]> rows = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            rows.add(new String[]{String.valueOf(i), i == 3 ? "Con, coma y \"comillas\"" : "Fila " + i});
+        }
+        List<Long> progress = new ArrayList<>();
+        CsvExporter exporter = new CsvExporter(1024);
+        exporter.setProgressInterval(10);
+        Path file = Files.createTempFile("exportacion", ".csv");
+        Path gzipFile = Files.createTempFile("exportacion", ".csv.gz");
+        try {
+            long count = exporter.export(rows.stream(), new String[]{"id", "texto"}, row -> row, file, false, progress::add);
+            assertEquals(25, count, "Deberían exportarse todas las filas.");
+            assertEquals(List.of(10L, 20L, 25L), progress, "El avance debería avisarse cada 10 filas y al terminar.");
+
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            assertEquals(26, lines.size(), "El archivo debería tener el encabezado y una línea por fila.");
+            assertEquals("id,texto", lines.get(0), "La primera línea debería ser el encabezado.");
+            assertEquals("3,\"Con, coma y \"\"comillas\"\"\"", lines.get(4), "Los campos especiales deberían escaparse.");
+
+            // El mismo contenido comprimido debe poder leerse con GZIPInputStream
+            exporter.export(rows.stream(), new String[]{"id", "texto"}, row -> row, gzipFile, true, null);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(gzipFile)), StandardCharsets.UTF_8))) {
+                assertEquals(lines, reader.lines().toList(), "El archivo comprimido debería tener el mismo contenido.");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(gzipFile);
+        }
+    }
+
+    @Test
+    void testExportEmployeesThroughput() throws SQLException, IOException {
+        // Genera una tabla sintética grande, la exporta con y sin compresión y mide filas por segundo
+        final int rows = 500_000;
+        PositionDAO positionDAO = new PositionDAO();
+        EmployeeDAO employeeDAO = new EmployeeDAO();
+        Position position = positionDAO.create(new Position(0, "Cargo Export Test", "Cargo para la prueba de exportación"));
+        String prefix = "Export" + new Random().nextInt(100000) + "-";
+
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        try (PreparedStatement ps = connectionManager.connect().prepareStatement(
+                "INSERT INTO Employees (name, positionId, hireDate, salary) " +
+                "SELECT TOP (?) CONCAT(?, ROW_NUMBER() OVER (ORDER BY (SELECT NULL))), ?, GETDATE(), 1234.5 " +
+                "FROM sys.all_objects a CROSS JOIN sys.all_objects b CROSS JOIN sys.all_objects c")) {
+            ps.setInt(1, rows);
+            ps.setString(2, prefix);
+            ps.setInt(3, position.getId());
+            ps.executeUpdate();
+        } finally {
+            connectionManager.disconnect();
+        }
+
+        Path file = Files.createTempFile("empleados", ".csv");
+        Path gzipFile = Files.createTempFile("empleados", ".csv.gz");
+        try {
+            CsvExporter exporter = new CsvExporter();
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long baseline = runtime.totalMemory() - runtime.freeMemory();
+            long[] maxUsed = {0};
+            exporter.setProgressInterval(100_000);
+
+            for (boolean gzip : new boolean[]{false, true}) {
+                Path target = gzip ? gzipFile : file;
+                long start = System.nanoTime();
+                long count = exporter.exportEmployees(target, gzip, written -> {
+                    System.gc();
+                    maxUsed[0] = Math.max(maxUsed[0], runtime.totalMemory() - runtime.freeMemory() - baseline);
+                });
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Exportación %s: %d filas en %.2f s (%.0f filas/s, %d KB)%n",
+                        gzip ? "GZIP" : "CSV", count, seconds, count / seconds, Files.size(target) / 1024);
+                assertTrue(count >= rows, "Deberían exportarse al menos las filas generadas.");
+            }
+
+            assertTrue(maxUsed[0] < 64L * 1024 * 1024,
+                    "La memoria usada no debería crecer con la cantidad de filas: " + maxUsed[0] / 1024 + " KB");
+            assertTrue(Files.size(gzipFile) < Files.size(file), "El archivo comprimido debería ser más chico.");
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(gzipFile);
+            try (Stream<Employee> stream = employeeDAO.stream(prefix)) {
+                employeeDAO.deleteByIds(stream.mapToInt(Employee::getId).toArray());
+            }
+            positionDAO.delete(position);
+        }
+    }
+}
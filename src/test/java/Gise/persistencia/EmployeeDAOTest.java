@@ -1,15 +1,31 @@
 package Gise.persistencia;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import Gise.dominio.Employee;
+import Gise.dominio.EmployeeSummary;
+import Gise.dominio.PositionSalaryStats;
 import Gise.dominio.Position;
 import Gise.persistencia.EmployeeDAO;
 import Gise.persistencia.PositionDAO;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
 import java.sql.SQLException;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -21,6 +37,12 @@ class EmployeeDAOTest {
     private EmployeeDAO employeeDAO;
     private PositionDAO positionDAO;
 
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // Las consultas de los DAO requieren el esquema al día (por ejemplo, la columna version)
+        new SchemaMigrator().migrate();
+    }
+
     @BeforeEach
     void setUp() {
         // Inicializar los DAOs antes de cada prueba
@@ -189,4 +211,624 @@ class EmployeeDAOTest {
             System.out.println("No hay posiciones disponibles para probar getByPosition()");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testConcurrentAccess() throws Exception {
+        // Un único DAO compartido por muchos hilos no debe mezclar cursores ni resultados
+        EmployeeDAO sharedDAO = EmployeeDAO.getInstance();
+        final int employeesCount = 20;
+        final int tasks = 400;
+
+        Position position = new Position();
+        position.setTitle("Cargo Concurrencia Test");
+        position.setDescription("Cargo para la prueba de concurrencia");
+        Position createdPosition = positionDAO.create(position);
+
+        String prefix = "Concurrente " + new Random().nextInt(100000) + " ";
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < employeesCount; i++) {
+            Employee employee = new Employee(0, prefix + i, createdPosition.getId(), new Date(), 1000 + i);
+            employees.add(sharedDAO.create(employee));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < tasks; i++) {
+                Employee employee = employees.get(i % employeesCount);
+                int operation = i % 3;
+                futures.add(executor.submit(() -> {
+                    if (operation == 0) {
+                        // Todos los resultados deben pertenecer a la búsqueda de este hilo
+                        for (Employee found : sharedDAO.search(prefix)) {
+                            assertTrue(found.getName().startsWith(prefix), "Resultado ajeno a la búsqueda: " + found.getName());
+                        }
+                    } else if (operation == 1) {
+                        Employee found = sharedDAO.getById(employee.getId());
+                        assertNotNull(found, "El empleado debería existir.");
+                        assertEquals(employee.getId(), found.getId(), "getById devolvió otro empleado.");
+                    } else {
+                        Employee copy = new Employee(employee.getId(), employee.getName(), employee.getPositionId(),
+                                employee.getHireDate(), employee.getSalary() + 1);
+                        assertTrue(sharedDAO.update(copy), "La actualización concurrente debería ser exitosa.");
+                    }
+                    return null;
+                }));
+            }
+            // get() propaga cualquier excepción o aserción fallida de los hilos
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+            for (Employee employee : employees) {
+                sharedDAO.delete(employee);
+            }
+            positionDAO.delete(createdPosition);
+        }
+
+        assertEquals(0, ConnectionManager.getInstance().getPool().getActiveCount(),
+                "Todas las conexiones deberían haber vuelto al pool.");
+    }
+
+    @Test
+    void testCreateAll() throws SQLException {
+        // Crea varios empleados en lotes y verifica que cada uno recibe su propio ID en orden
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Lote Test", "Cargo para la prueba de lotes"));
+        String prefix = "Lote " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            employees.add(new Employee(0, prefix + i, createdPosition.getId(), new Date(), 2000 + i));
+        }
+
+        try {
+            // Con lotes de 50 se envían tres sentencias (50 + 50 + 20)
+            List<Employee> created = employeeDAO.createAll(employees, 50);
+            assertEquals(employees.size(), created.size(), "Deberían devolverse todos los empleados.");
+
+            int previousId = 0;
+            for (Employee employee : created) {
+                assertTrue(employee.getId() > previousId, "Los IDs deberían asignarse en el orden de la lista.");
+                previousId = employee.getId();
+
+                Employee stored = employeeDAO.getById(employee.getId());
+                assertNotNull(stored, "El empleado creado en lote debería existir.");
+                assertEquals(employee.getName(), stored.getName(), "El ID debería corresponder al empleado enviado.");
+            }
+        } finally {
+            for (Employee employee : employees) {
+                if (employee.getId() > 0) {
+                    employeeDAO.delete(employee);
+                }
+            }
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testUpdateAllBenchmark() throws SQLException {
+        // Compara 10.000 actualizaciones individuales contra la misma cantidad en lotes
+        final int count = 10_000;
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Masivo Test", "Cargo para la prueba masiva"));
+        String prefix = "Masivo " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee(0, prefix + i, createdPosition.getId(), new Date(), 3000));
+        }
+        employeeDAO.createAll(employees);
+
+        int[] ids = new int[count];
+        try {
+            long start = System.nanoTime();
+            for (Employee employee : employees) {
+                employee.setSalary(employee.getSalary() + 1);
+                employeeDAO.update(employee);
+            }
+            long singleMillis = (System.nanoTime() - start) / 1_000_000;
+
+            for (Employee employee : employees) {
+                employee.setSalary(employee.getSalary() + 1);
+            }
+            start = System.nanoTime();
+            boolean[] updated = employeeDAO.updateAll(employees);
+            long batchMillis = (System.nanoTime() - start) / 1_000_000;
+
+            System.out.println("Actualizaciones individuales: " + singleMillis + " ms, en lotes: " + batchMillis + " ms");
+            for (boolean row : updated) {
+                assertTrue(row, "Todas las filas deberían actualizarse en el lote.");
+            }
+            assertEquals(3002, employeeDAO.getById(employees.get(count - 1).getId()).getSalary(), 0.001,
+                    "El último empleado debería tener el salario actualizado por el lote.");
+        } finally {
+            for (int i = 0; i < count; i++) {
+                ids[i] = employees.get(i).getId();
+            }
+            boolean[] deleted = employeeDAO.deleteByIds(ids);
+            positionDAO.delete(createdPosition);
+            for (boolean row : deleted) {
+                assertTrue(row, "Todos los empleados deberían eliminarse.");
+            }
+        }
+    }
+
+    @Test
+    void testSearchPage() throws SQLException {
+        // Recorre una búsqueda de 25 empleados en páginas de 10 y verifica orden y completitud
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Pagina Test", "Cargo para la prueba de paginación"));
+        String prefix = "Pagina " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // Se repiten nombres para comprobar que el id desempata correctamente
+            employees.add(new Employee(0, prefix + (i % 7), createdPosition.getId(), new Date(), 1000));
+        }
+        employeeDAO.createAll(employees);
+
+        try {
+            List<Employee> seen = new ArrayList<>();
+            String token = null;
+            int pages = 0;
+            do {
+                Page<Employee> page = employeeDAO.searchPage(prefix, 10, token);
+                assertTrue(page.getItems().size() <= 10, "Una página no debe superar el tamaño pedido.");
+                seen.addAll(page.getItems());
+                token = page.getNextToken();
+                pages++;
+            } while (token != null);
+
+            assertEquals(3, pages, "25 empleados en páginas de 10 deberían ocupar 3 páginas.");
+            assertEquals(25, seen.size(), "Todas las filas deberían aparecer exactamente una vez.");
+            for (int i = 1; i < seen.size(); i++) {
+                Employee previous = seen.get(i - 1);
+                Employee current = seen.get(i);
+                int byName = previous.getName().compareTo(current.getName());
+                assertTrue(byName < 0 || (byName == 0 && previous.getId() < current.getId()),
+                        "Las filas deberían venir ordenadas por nombre e id.");
+            }
+        } finally {
+            int[] ids = employees.stream().mapToInt(Employee::getId).toArray();
+            employeeDAO.deleteByIds(ids);
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testListSummaries() throws SQLException {
+        // La proyección del listado debe traer las mismas filas, en el mismo orden, que la consulta completa
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Resumen Test", "Cargo para la prueba de resúmenes"));
+        String prefix = "Resumen " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            employees.add(new Employee(0, prefix + (i % 7), createdPosition.getId(), new Date(), 1000 + i));
+        }
+        employeeDAO.createAll(employees);
+
+        try {
+            List<EmployeeSummary> seen = new ArrayList<>();
+            String token = null;
+            do {
+                Page<EmployeeSummary> page = employeeDAO.listSummaries(prefix, 10, token);
+                seen.addAll(page.getItems());
+                token = page.getNextToken();
+            } while (token != null);
+
+            List<Employee> full = employeeDAO.searchWithPositionPage(prefix, 100, null).getItems();
+            assertEquals(full.size(), seen.size(), "Deberían listarse los mismos empleados que en la consulta completa.");
+            for (int i = 0; i < full.size(); i++) {
+                assertEquals(EmployeeSummary.of(full.get(i)), seen.get(i),
+                        "Cada resumen debería coincidir con los datos del empleado completo.");
+            }
+            assertEquals("Cargo Resumen Test", seen.get(0).positionTitle(), "El resumen debería incluir el título del cargo.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).toArray());
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testSalaryStatsByPosition() throws SQLException {
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Nomina Test", "Cargo para la prueba de salarios"));
+        List<Employee> employees = new ArrayList<>(List.of(
+                new Employee(0, "Nomina A", createdPosition.getId(), java.sql.Date.valueOf("2020-01-15"), 1000.10),
+                new Employee(0, "Nomina B", createdPosition.getId(), java.sql.Date.valueOf("2021-06-01"), 2000.20),
+                new Employee(0, "Nomina C", createdPosition.getId(), java.sql.Date.valueOf("2022-03-10"), 3000.35)));
+        employeeDAO.createAll(employees);
+
+        try {
+            long start = System.nanoTime();
+            List<PositionSalaryStats> all = employeeDAO.salaryStatsByPosition();
+            System.out.println("Salarios de " + all.size() + " cargos en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            PositionSalaryStats stats = all.stream()
+                    .filter(s -> s.positionId() == createdPosition.getId()).findFirst().orElseThrow();
+            assertEquals(3, stats.headcount(), "Deberían contarse los tres empleados.");
+            assertEquals(0, new BigDecimal("6000.65").compareTo(stats.totalSalary()), "La nómina debería sumarse sin perder decimales.");
+            assertEquals(0, new BigDecimal("1000.10").compareTo(stats.minSalary()), "Salario mínimo incorrecto.");
+            assertEquals(0, new BigDecimal("3000.35").compareTo(stats.maxSalary()), "Salario máximo incorrecto.");
+            assertEquals(0, new BigDecimal("2000.22").compareTo(stats.averageSalary()), "El promedio debería redondearse a dos decimales.");
+
+            // Solo los contratados desde 2021
+            PositionSalaryStats recent = employeeDAO.salaryStatsByPosition(java.sql.Date.valueOf("2021-01-01"), null).stream()
+                    .filter(s -> s.positionId() == createdPosition.getId()).findFirst().orElseThrow();
+            assertEquals(2, recent.headcount(), "El filtro por fecha de contratación debería excluir al primero.");
+            assertEquals(0, new BigDecimal("2500.28").compareTo(recent.averageSalary()), "Promedio filtrado incorrecto.");
+
+            assertTrue(employeeDAO.salaryStatsByPosition(java.sql.Date.valueOf("2023-01-01"), java.sql.Date.valueOf("2023-12-31"))
+                            .stream().noneMatch(s -> s.positionId() == createdPosition.getId()),
+                    "Un cargo sin empleados en el rango no debería aparecer.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).toArray());
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testSearchWithPositionSingleQuery() throws SQLException {
+        // Verifica que la búsqueda con el título del cargo usa una sola sentencia sin importar
+        // la cantidad de empleados (evita volver a las consultas N+1 de la vista)
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Join Test", "Cargo para la prueba de JOIN"));
+        String prefix = "Join " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            employees.add(new Employee(0, prefix + i, createdPosition.getId(), new Date(), 1000));
+        }
+        employeeDAO.createAll(employees);
+
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        try {
+            long before = connectionManager.getStatementCount();
+            ArrayList<Employee> found = employeeDAO.searchWithPosition(prefix);
+            assertEquals(1, connectionManager.getStatementCount() - before,
+                    "La búsqueda debería ejecutar una sola sentencia.");
+            assertEquals(employees.size(), found.size(), "Deberían encontrarse todos los empleados creados.");
+            for (Employee employee : found) {
+                assertEquals(createdPosition.getTitle(), employee.getPositionTitle(),
+                        "Cada empleado debería traer el título de su cargo.");
+            }
+
+            before = connectionManager.getStatementCount();
+            Page<Employee> page = employeeDAO.searchWithPositionPage(prefix, 20, null);
+            assertEquals(1, connectionManager.getStatementCount() - before,
+                    "Una página debería ejecutar una sola sentencia.");
+            assertEquals(20, page.getItems().size(), "La página debería tener el tamaño pedido.");
+            assertEquals(createdPosition.getTitle(), page.getItems().get(0).getPositionTitle(),
+                    "Los empleados de la página deberían traer el título de su cargo.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).toArray());
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testGetByIdCacheBenchmark() throws SQLException {
+        // Compara getById sin caché (se invalida antes de cada lectura) contra la lectura desde la caché
+        final int reads = 2000;
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Cache Test", "Cargo para la prueba de caché"));
+        Employee created = employeeDAO.create(new Employee(0, "Cache " + new Random().nextInt(100000),
+                createdPosition.getId(), new Date(), 1500));
+        EntityCache<Employee> cache = employeeDAO.getCache();
+
+        try {
+            long start = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                cache.invalidate(created.getId());
+                assertNotNull(employeeDAO.getById(created.getId()), "El empleado debería existir.");
+            }
+            long uncachedNanos = System.nanoTime() - start;
+
+            long hitsBefore = cache.getHits();
+            start = System.nanoTime();
+            for (int i = 0; i < reads; i++) {
+                assertEquals(created.getName(), employeeDAO.getById(created.getId()).getName(),
+                        "La caché debería devolver el empleado creado.");
+            }
+            long cachedNanos = System.nanoTime() - start;
+
+            System.out.println("getById sin caché: " + uncachedNanos / reads / 1000 + " µs/lectura, con caché: "
+                    + cachedNanos / reads + " ns/lectura, hit ratio: " + cache.getHitRatio());
+            assertEquals(hitsBefore + reads, cache.getHits(), "Todas las lecturas deberían salir de la caché.");
+            assertTrue(cachedNanos < uncachedNanos, "La lectura desde la caché debería ser más rápida.");
+
+            // Una actualización invalida la entrada y la próxima lectura ve el cambio
+            created.setName(created.getName() + "_actualizado");
+            assertTrue(employeeDAO.update(created), "La actualización del empleado debería ser exitosa.");
+            assertEquals(created.getName(), employeeDAO.getById(created.getId()).getName(),
+                    "La caché debería reflejar la actualización.");
+        } finally {
+            employeeDAO.delete(created);
+            positionDAO.delete(createdPosition);
+        }
+        assertNull(employeeDAO.getById(created.getId()), "El empleado eliminado no debería seguir en la caché.");
+    }
+
+    @Test
+    void testEntityCacheLruUnderConcurrency() throws Exception {
+        // Varios hilos leen una caché pequeña: nunca debe superar su tamaño máximo y las
+        // entradas que no entran deben contarse como expulsiones
+        final int maxSize = 50;
+        EntityCache<Employee> cache = new EntityCache<>(maxSize, 60_000L,
+                e -> new Employee(e.getId(), e.getName(), e.getPositionId(), e.getHireDate(), e.getSalary()));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    Random random = new Random();
+                    for (int i = 0; i < 10_000; i++) {
+                        int id = random.nextInt(200) + 1;
+                        Employee employee = cache.get(id, key -> new Employee(key, "Empleado " + key, 1, new Date(), 1000));
+                        assertEquals(id, employee.getId(), "La caché debería devolver el empleado pedido.");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= maxSize, "La caché no debería superar su tamaño máximo.");
+        assertEquals(80_000, cache.getHits() + cache.getMisses(), "Cada lectura debería contarse una vez.");
+        assertTrue(cache.getEvictions() > 0, "Deberían haberse expulsado entradas por LRU.");
+    }
+
+    @Test
+    void testAsyncDAO() throws Exception {
+        // Lanza cargas independientes a la vez y verifica la cancelación y el tiempo máximo
+        AsyncDAO asyncDAO = AsyncDAO.getInstance();
+        CompletableFuture<ArrayList<Position>> positions = asyncDAO.positions(PositionDAO::getAll);
+        CompletableFuture<Page<Employee>> employees =
+                asyncDAO.employees(dao -> dao.searchWithPositionPage("", 50, null));
+        assertNotNull(positions.get(1, TimeUnit.MINUTES), "La carga de cargos debería completarse.");
+        assertNotNull(employees.get(1, TimeUnit.MINUTES), "La carga de empleados debería completarse.");
+
+        // Una llamada que supera su tiempo máximo termina con TimeoutException y se interrumpe
+        CountDownLatch interrupted = new CountDownLatch(1);
+        CompletableFuture<Object> slow = asyncDAO.employees(dao -> {
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+            return null;
+        }, Duration.ofMillis(200));
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> slow.get(1, TimeUnit.MINUTES), "La llamada debería vencer.");
+        assertTrue(error.getCause() instanceof TimeoutException, "La causa debería ser el tiempo máximo.");
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS), "La llamada vencida debería interrumpirse.");
+
+        // Cancelar el futuro también interrumpe la llamada
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        CompletableFuture<Object> blocked = asyncDAO.employees(dao -> {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException ex) {
+                cancelled.countDown();
+            }
+            return null;
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS), "La llamada debería haber comenzado.");
+        blocked.cancel(true);
+        assertTrue(cancelled.await(10, TimeUnit.SECONDS), "La llamada cancelada debería interrumpirse.");
+    }
+
+    @Test
+    void testStreamMillionRows() throws SQLException {
+        // Genera un millón de empleados sintéticos en el servidor y los recorre con un Stream,
+        // verificando que la memoria usada no crece con la cantidad de filas leídas
+        final int rows = 1_000_000;
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Stream Test", "Cargo para la prueba de streaming"));
+        String prefix = "Stream" + new Random().nextInt(100000) + "-";
+
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        try (java.sql.PreparedStatement ps = connectionManager.connect().prepareStatement(
+                "INSERT INTO Employees (name, positionId, hireDate, salary) " +
+                "SELECT TOP (?) CONCAT(?, ROW_NUMBER() OVER (ORDER BY (SELECT NULL))), ?, GETDATE(), 1000 " +
+                "FROM sys.all_objects a CROSS JOIN sys.all_objects b CROSS JOIN sys.all_objects c")) {
+            ps.setInt(1, rows);
+            ps.setString(2, prefix);
+            ps.setInt(3, createdPosition.getId());
+            ps.executeUpdate();
+        } finally {
+            connectionManager.disconnect();
+        }
+
+        try {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+            long baseline = runtime.totalMemory() - runtime.freeMemory();
+            long maxUsed = 0;
+            long count = 0;
+
+            try (Stream<Employee> stream = employeeDAO.streamByPosition(createdPosition.getId(), 2000)) {
+                Iterator<Employee> iterator = stream.iterator();
+                while (iterator.hasNext()) {
+                    Employee employee = iterator.next();
+                    assertEquals(createdPosition.getId(), employee.getPositionId(), "El empleado debería pertenecer al cargo.");
+                    if (++count % 100_000 == 0) {
+                        System.gc();
+                        maxUsed = Math.max(maxUsed, runtime.totalMemory() - runtime.freeMemory() - baseline);
+                    }
+                }
+            }
+
+            System.out.println("Filas recorridas: " + count + ", memoria adicional máxima: " + maxUsed / (1024 * 1024) + " MB");
+            assertEquals(rows, count, "Deberían recorrerse todas las filas generadas.");
+            assertTrue(maxUsed < 64L * 1024 * 1024, "La memoria usada no debería crecer con el tamaño del resultado.");
+        } finally {
+            try (java.sql.PreparedStatement ps = connectionManager.connect().prepareStatement(
+                    "DELETE FROM Employees WHERE positionId = ?")) {
+                ps.setInt(1, createdPosition.getId());
+                ps.executeUpdate();
+            } finally {
+                connectionManager.disconnect();
+            }
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testOptimisticLock() throws SQLException {
+        // Dos operadores leen el mismo empleado y lo guardan uno después del otro
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Version Test", "Cargo para la prueba de versiones"));
+        Employee employee = employeeDAO.create(new Employee(0, "Version " + new Random().nextInt(100000),
+                createdPosition.getId(), new Date(), 3000));
+        try {
+            assertNotEquals(0, employee.getVersion(), "El empleado creado debería tener versión.");
+            Employee first = employeeDAO.getById(employee.getId());
+            Employee second = employeeDAO.getById(employee.getId());
+            assertEquals(employee.getVersion(), first.getVersion(), "La versión leída debería ser la del empleado creado.");
+
+            first.setSalary(3100);
+            assertTrue(employeeDAO.update(first), "La primera actualización debería guardarse.");
+            assertNotEquals(second.getVersion(), first.getVersion(), "La actualización debería cambiar la versión.");
+
+            // El segundo trabaja sobre una versión vieja: no debe pisar los cambios del primero
+            second.setSalary(3200);
+            OptimisticLockException conflict = assertThrows(OptimisticLockException.class, () -> employeeDAO.update(second),
+                    "La actualización con una versión vieja debería informar el conflicto.");
+            assertEquals(employee.getId(), conflict.getId(), "El conflicto debería indicar el empleado.");
+            assertThrows(OptimisticLockException.class, () -> employeeDAO.updateAll(List.of(second)),
+                    "La actualización por lotes también debería informar el conflicto.");
+            assertEquals(3100, employeeDAO.getById(employee.getId()).getSalary(), 0.001,
+                    "Debería conservarse el salario guardado por el primero.");
+
+            // Al volver a leerlo, el segundo puede guardar sus cambios
+            Employee reloaded = employeeDAO.getById(employee.getId());
+            reloaded.setSalary(3200);
+            assertTrue(employeeDAO.updateAll(List.of(reloaded))[0], "La actualización sobre la versión actual debería guardarse.");
+            assertEquals(employeeDAO.getById(employee.getId()).getVersion(), reloaded.getVersion(),
+                    "La actualización por lotes debería asignar la nueva versión.");
+
+            // Con versión 0 se actualiza sin comprobarla
+            second.setVersion(0);
+            assertTrue(employeeDAO.update(second), "Sin versión la actualización no debería comprobarse.");
+
+            // Un empleado eliminado no es un conflicto: la actualización devuelve false
+            employeeDAO.delete(employee);
+            assertFalse(employeeDAO.update(reloaded), "No debería actualizarse un empleado eliminado.");
+        } finally {
+            employeeDAO.delete(employee);
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testUpsertAll() throws SQLException {
+        // Simula dos corridas de la sincronización nocturna sobre los mismos empleados
+        final int count = 1_000;
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Sync Test", "Cargo para la prueba de sincronización"));
+        String prefix = "Sync" + new Random().nextInt(100000) + "-";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Employee employee = new Employee(0, prefix + i, createdPosition.getId(), new Date(), 3000);
+            employee.setExternalKey(prefix + i);
+            employees.add(employee);
+        }
+        try {
+            UpsertResult first = employeeDAO.upsertAll(employees);
+            assertEquals(count, first.getInserted(), "En la primera corrida todos los empleados deberían insertarse.");
+            assertEquals(0, first.getUpdated(), "En la primera corrida no debería actualizarse ninguno.");
+            assertTrue(employees.get(count - 1).getId() > 0, "Los empleados insertados deberían recibir su ID.");
+            assertEquals(prefix + 5, employeeDAO.getById(employees.get(5).getId()).getExternalKey(),
+                    "El empleado debería guardarse con su clave externa.");
+
+            // Segunda corrida: 10 cambios, 5 empleados nuevos y el resto igual
+            for (int i = 0; i < 10; i++) {
+                employees.get(i).setSalary(3500);
+            }
+            for (int i = count; i < count + 5; i++) {
+                Employee employee = new Employee(0, prefix + i, createdPosition.getId(), new Date(), 3000);
+                employee.setExternalKey(prefix + i);
+                employees.add(employee);
+            }
+            long start = System.nanoTime();
+            UpsertResult second = employeeDAO.upsertAll(employees);
+            System.out.println("Sincronización de " + employees.size() + " empleados: " + second
+                    + " en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            assertEquals(5, second.getInserted(), "Deberían insertarse los empleados nuevos.");
+            assertEquals(10, second.getUpdated(), "Deberían actualizarse solo los empleados modificados.");
+            assertEquals(count - 10, second.getUnchanged(), "El resto debería quedar sin cambios.");
+            assertEquals(3500, employeeDAO.getById(employees.get(0).getId()).getSalary(), 0.001,
+                    "El salario modificado debería guardarse.");
+
+            Employee duplicate = new Employee(0, "Duplicado", createdPosition.getId(), new Date(), 3000);
+            duplicate.setExternalKey(prefix + 0);
+            assertThrows(IllegalArgumentException.class, () -> employeeDAO.upsertAll(List.of(employees.get(0), duplicate)),
+                    "Una clave externa repetida debería rechazarse.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).filter(id -> id > 0).toArray());
+            positionDAO.delete(createdPosition);
+        }
+    }
+
+    @Test
+    void testChangesSince() throws SQLException {
+        final int count = 5_000;
+        Position createdPosition = positionDAO.create(new Position(0, "Cargo Cambios Test", "Cargo para la prueba de cambios"));
+        String prefix = "Delta" + new Random().nextInt(100000) + "-";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee(0, prefix + i, createdPosition.getId(), new Date(), 3000));
+        }
+        employeeDAO.createAll(employees);
+        try {
+            String token = employeeDAO.currentChangeToken();
+            assertTrue(employeeDAO.changesSince(token).isEmpty(), "Sin escrituras no debería haber cambios.");
+
+            // Un empleado modificado, uno nuevo y uno eliminado
+            Employee modified = employeeDAO.getById(employees.get(1).getId());
+            modified.setSalary(4000);
+            employeeDAO.update(modified);
+            Employee added = employeeDAO.create(new Employee(0, prefix + "nuevo", createdPosition.getId(), new Date(), 3000));
+            employees.add(added);
+            employeeDAO.deleteByIds(new int[]{employees.get(2).getId()});
+
+            long start = System.nanoTime();
+            ChangeSet<Employee> changes = employeeDAO.changesSince(token);
+            long deltaMillis = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            employeeDAO.searchWithPosition(prefix);
+            long fullMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Cambios de " + count + " empleados: " + deltaMillis + " ms (" + changes.getChanged().size()
+                    + " filas), recarga completa: " + fullMillis + " ms");
+
+            List<Integer> changedIds = changes.getChanged().stream().map(Employee::getId).toList();
+            assertEquals(List.of(added.getId(), modified.getId()).stream().sorted().toList(),
+                    changedIds.stream().sorted().toList(), "Deberían informarse solo el empleado modificado y el nuevo.");
+            assertEquals("Cargo Cambios Test", changes.getChanged().get(0).getPositionTitle(),
+                    "Los cambios deberían incluir el título del cargo.");
+            assertEquals(List.of(employees.get(2).getId()), changes.getDeletedIds(),
+                    "Debería informarse el empleado eliminado.");
+
+            // El token devuelto continúa después de los cambios ya informados
+            assertTrue(employeeDAO.changesSince(changes.getToken()).isEmpty(),
+                    "Con el token nuevo no debería haber cambios pendientes.");
+            assertThrows(IllegalArgumentException.class, () -> employeeDAO.changesSince("no es un token"),
+                    "Un token inválido debería rechazarse.");
+
+            // Las páginas que se siguen con el token se leen en la base principal, con el mismo resultado
+            assertEquals(employeeDAO.listSummaries(prefix, 20, null).getItems(),
+                    employeeDAO.listSummariesFromPrimary(prefix, 20, null).getItems(),
+                    "La página leída en la base principal debería ser igual a la del listado.");
+
+            // Sin token se obtienen todas las filas y el token que las sigue, sin eliminados
+            ChangeSet<Position> positions = positionDAO.changesSince(null);
+            assertTrue(positions.getDeletedIds().isEmpty(), "Sin token no debería haber eliminados.");
+            assertTrue(positions.getChanged().stream().anyMatch(p -> p.getId() == createdPosition.getId()),
+                    "Sin token deberían obtenerse todos los cargos.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).toArray());
+            positionDAO.delete(createdPosition);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package Gise.persistencia;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import Gise.dominio.Employee;
+import Gise.dominio.Position;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la importación masiva de empleados desde CSV
+ */
+class EmployeeImporterTest {
+
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // Las consultas de los DAO requieren el esquema al día (por ejemplo, la columna version)
+        new SchemaMigrator().migrate();
+    }
+
+    /**
+     * Genera un CSV con {@code rows} empleados válidos y cuatro filas inválidas.
+     */
+    private String buildCsv(String prefix, String title, int rows) {
+        StringBuilder csv = new StringBuilder("salary,name,position,hireDate\n"); // Columnas en otro orden
+        for (int i = 0; i < rows; i++) {
+            csv.append(1000 + i % 500).append(".50,")
+                    .append(prefix).append(i).append(',')
+                    .append(title).append(",2024-01-15\n");
+        }
+        csv.append("1500,\"").append(prefix).append("con, coma\"").append(',').append(title).append(",2024-02-01\n");
+        csv.append("1500,").append(prefix).append("x,Cargo Inexistente ").append(prefix).append(",2024-02-01\n");
+        csv.append("1500,").append(prefix).append("y,").append(title).append(",2024-13-40\n");
+        csv.append("abc,").append(prefix).append("z,").append(title).append(",2024-02-01\n");
+        csv.append("-1,").append(prefix).append("w,").append(title).append(",2024-02-01\n");
+        return csv.toString();
+    }
+
+    private void importAndVerify(EmployeeImporter.Mode mode, int rows) throws SQLException, IOException {
+        PositionDAO positionDAO = new PositionDAO();
+        EmployeeDAO employeeDAO = new EmployeeDAO();
+        String prefix = "Import" + new Random().nextInt(100000) + "-";
+        Position position = positionDAO.create(new Position(0, "Cargo Import " + prefix, "Cargo para la prueba de importación"));
+
+        try {
+            EmployeeImporter importer = new EmployeeImporter();
+            importer.setMode(mode);
+            importer.setBatchSize(5_000);
+            StringWriter report = new StringWriter();
+
+            EmployeeImporter.Result result = importer.importCsv(new StringReader(buildCsv(prefix, position.getTitle(), rows)), report);
+            System.out.println(mode + ": " + result.getImported() + " empleados en " + result.getElapsedMillis()
+                    + " ms (bulk copy: " + result.isBulkCopy() + ")");
+
+            assertEquals(rows + 5, result.getRead(), "Deberían leerse todas las filas del archivo.");
+            assertEquals(rows + 1, result.getImported(), "Deberían importarse las filas válidas.");
+            assertEquals(4, result.getRejected(), "Deberían rechazarse las filas inválidas.");
+
+            String[] lines = report.toString().split("\n");
+            assertEquals(5, lines.length, "El reporte debería tener el encabezado y una línea por rechazo.");
+            assertTrue(lines[1].startsWith((rows + 3) + ","), "El reporte debería indicar la línea del archivo.");
+            assertTrue(lines[1].contains("Cargo desconocido"), "El reporte debería indicar el motivo.");
+
+            try (Stream<Employee> stream = employeeDAO.stream(prefix)) {
+                List<Employee> imported = stream.collect(Collectors.toList());
+                assertEquals(rows + 1, imported.size(), "Los empleados importados deberían estar en la tabla.");
+                assertTrue(imported.stream().anyMatch(e -> e.getName().equals(prefix + "con, coma")),
+                        "Los campos entre comillas deberían importarse completos.");
+                assertTrue(imported.stream().allMatch(e -> e.getPositionId() == position.getId()),
+                        "El título del cargo debería convertirse en su ID.");
+            }
+        } finally {
+            try (Stream<Employee> stream = employeeDAO.stream(prefix)) {
+                employeeDAO.deleteByIds(stream.mapToInt(Employee::getId).toArray());
+            }
+            positionDAO.delete(position);
+        }
+    }
+
+    @Test
+    void testBulkCopyImport() throws SQLException, IOException {
+        importAndVerify(EmployeeImporter.Mode.AUTO, 100_000);
+    }
+
+    @Test
+    void testBatchInsertImport() throws SQLException, IOException {
+        importAndVerify(EmployeeImporter.Mode.BATCH_INSERT, 100_000);
+    }
+
+    @Test
+    void testMissingColumns() {
+        EmployeeImporter importer = new EmployeeImporter();
+        assertThrows(IOException.class,
+                () -> importer.importCsv(new StringReader("name,salary\nAna,1000\n"), new StringWriter()),
+                "Un encabezado sin todas las columnas debería rechazarse.");
+    }
+}
@@ -0,0 +1,302 @@
+package Gise.persistencia;
+
+import org.junit.jupiter.api.Test;
+import Gise.dominio.Employee;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para la clase EmployeeWriteBehind. No usan la base de datos: los envíos van a
+ * un {@link FakeWriter} que registra lo que recibe.
+ */
+class EmployeeWriteBehindTest {
+
+    private static final long SIN_ENVIO_AUTOMATICO = TimeUnit.HOURS.toMillis(1); // Solo se envía con flush().
+
+    /**
+     * Registra los empleados recibidos y asigna versiones nuevas como lo hace updateAll.
+     */
+    private static class FakeWriter implements EmployeeWriteBehind.Writer {
+        final Map<Integer, List<Double>> salaries = new ConcurrentHashMap<>(); // Salarios recibidos por ID.
+        final List<Long> versions = new CopyOnWriteArrayList<>(); // Versiones recibidas, en orden.
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicBoolean fail = new AtomicBoolean();
+
+        @Override
+        public boolean[] write(List<Employee> employees) throws SQLException {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                calls.incrementAndGet();
+                Thread.sleep(1); // Da tiempo a que otro envío se superponga si pudiera.
+                if (fail.get()) {
+                    throw new SQLException("Falla simulada");
+                }
+                boolean[] res = new boolean[employees.size()];
+                for (int i = 0; i < employees.size(); i++) {
+                    Employee employee = employees.get(i);
+                    salaries.computeIfAbsent(employee.getId(), id -> new CopyOnWriteArrayList<>()).add(employee.getSalary());
+                    versions.add(employee.getVersion());
+                    employee.setVersion(employee.getVersion() + 1);
+                    res[i] = true;
+                }
+                return res;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException(ex);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Guarda los resultados de los envíos automáticos.
+     */
+    private static class RecordingListener implements EmployeeWriteBehind.Listener {
+        final List<Employee> failed = new CopyOnWriteArrayList<>();
+        final List<SQLException> errors = new CopyOnWriteArrayList<>();
+        final CountDownLatch failure = new CountDownLatch(1);
+
+        @Override
+        public void onFailure(List<Employee> employees, SQLException error) {
+            failed.addAll(employees);
+            errors.add(error);
+            failure.countDown();
+        }
+    }
+
+    private static Employee employee(int id, double salary, long version) {
+        Employee employee = new Employee(id, "Empleado" + id, 1, new Date(), salary);
+        employee.setVersion(version);
+        return employee;
+    }
+
+    @Test
+    void testCoalescing() throws SQLException {
+        FakeWriter writer = new FakeWriter();
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener())) {
+            for (int edit = 1; edit <= 50; edit++) {
+                for (int id = 1; id <= 3; id++) {
+                    queue.enqueue(employee(id, edit, 7));
+                }
+            }
+            assertEquals(3, queue.getPendingCount(), "Debe quedar una modificación pendiente por empleado.");
+            assertEquals(50.0, queue.getPending(2).getSalary(), "La pendiente debe ser la última edición.");
+
+            List<Employee> flushed = queue.flush();
+
+            assertEquals(3, flushed.size(), "Debe enviarse un empleado por ID.");
+            assertEquals(1, writer.calls.get(), "Los pendientes deben enviarse en un solo grupo.");
+            for (int id = 1; id <= 3; id++) {
+                assertEquals(List.of(50.0), writer.salaries.get(id), "Solo debe escribirse la última edición.");
+            }
+            assertEquals(List.of(7L, 7L, 7L), writer.versions, "Debe enviarse la versión leída.");
+            assertEquals(150, queue.getEnqueued());
+            assertEquals(147, queue.getCoalesced());
+            assertEquals(3, queue.getWritten());
+            assertEquals(0, queue.getPendingCount());
+        }
+    }
+
+    @Test
+    void testOrderingUnderConcurrentProducers() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        int producers = 4;
+        int idsPerProducer = 5;
+        int edits = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, 2, new RecordingListener())) {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                int firstId = p * idsPerProducer + 1;
+                tasks.add(executor.submit(() -> {
+                    // Cada productor edita sus empleados con salarios crecientes.
+                    for (int edit = 1; edit <= edits; edit++) {
+                        for (int id = firstId; id < firstId + idsPerProducer; id++) {
+                            queue.enqueue(employee(id, edit, 0));
+                        }
+                        if (edit % 20 == 0) {
+                            Thread.sleep(3); // Deja pasar envíos automáticos entre ediciones.
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get(30, TimeUnit.SECONDS);
+            }
+            queue.flush();
+
+            assertTrue(writer.calls.get() > 1, "Debe haber envíos automáticos mientras se edita.");
+            assertEquals(1, writer.maxInFlight.get(), "Los envíos no deben superponerse.");
+            assertEquals(producers * idsPerProducer, writer.salaries.size());
+            for (Map.Entry<Integer, List<Double>> entry : writer.salaries.entrySet()) {
+                List<Double> written = entry.getValue();
+                for (int i = 1; i < written.size(); i++) {
+                    assertTrue(written.get(i - 1) < written.get(i),
+                            "Las ediciones del empleado " + entry.getKey() + " deben escribirse en orden: " + written);
+                }
+                assertEquals((double) edits, written.get(written.size() - 1).doubleValue(), "La última escritura debe ser la última edición.");
+            }
+            assertEquals(producers * idsPerProducer * edits, queue.getEnqueued());
+            assertEquals(queue.getEnqueued() - queue.getCoalesced(), queue.getWritten(),
+                    "Cada modificación no reemplazada debe escribirse una vez.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsReported() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        RecordingListener listener = new RecordingListener();
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, 5, listener)) {
+            writer.fail.set(true);
+            queue.enqueue(employee(1, 100, 3));
+            queue.enqueue(employee(2, 200, 3));
+
+            assertTrue(listener.failure.await(10, TimeUnit.SECONDS), "El listener debe recibir la falla.");
+            assertEquals(List.of(1, 2), listener.failed.stream().map(Employee::getId).toList(),
+                    "Deben informarse los empleados del envío que falló.");
+            assertEquals(200.0, listener.failed.get(1).getSalary());
+            assertEquals("Falla simulada", listener.errors.get(0).getMessage());
+            assertEquals(0, queue.getPendingCount(), "Las modificaciones que fallaron se descartan.");
+
+            // Las ediciones siguientes se envían normalmente.
+            writer.fail.set(false);
+            queue.enqueue(employee(1, 150, 3));
+            queue.flush();
+            assertEquals(List.of(150.0), writer.salaries.get(1));
+            assertNull(writer.salaries.get(2));
+        }
+    }
+
+    @Test
+    void testFlushPropagatesFailure() {
+        FakeWriter writer = new FakeWriter();
+        writer.fail.set(true);
+        EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener());
+        queue.enqueue(employee(1, 100, 3));
+
+        SQLException ex = assertThrows(SQLException.class, queue::close);
+        assertEquals("Falla simulada", ex.getMessage());
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    @Test
+    void testMissingEmployees() throws SQLException {
+        EmployeeWriteBehind.Writer writer = employees -> new boolean[]{true, false};
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener())) {
+            queue.enqueue(employee(1, 100, 3));
+            queue.enqueue(employee(2, 200, 3));
+
+            SQLException ex = assertThrows(SQLException.class, queue::flush);
+            assertTrue(ex.getMessage().contains("2"), "El mensaje debe indicar el empleado que no existe.");
+            assertEquals(1, queue.getWritten(), "El empleado que existe sí debe guardarse.");
+        }
+    }
+
+    @Test
+    void testCloseFlushesPending() throws SQLException {
+        FakeWriter writer = new FakeWriter();
+        EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener());
+        queue.enqueue(employee(1, 100, 3));
+        queue.enqueue(employee(2, 200, 3));
+
+        queue.close();
+
+        assertEquals(List.of(100.0), writer.salaries.get(1));
+        assertEquals(List.of(200.0), writer.salaries.get(2));
+        assertThrows(IllegalStateException.class, () -> queue.enqueue(employee(1, 300, 4)),
+                "No debe poder encolarse después de cerrar.");
+    }
+
+    @Test
+    void testRebaseAfterFlush() throws SQLException {
+        FakeWriter writer = new FakeWriter();
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener())) {
+            queue.enqueue(employee(1, 100, 3));
+            queue.flush();
+
+            // La pantalla todavía tiene la versión 3, pero la cola ya la reemplazó por la 4.
+            queue.enqueue(employee(1, 110, 3));
+            assertEquals(4, queue.getPending(1).getVersion());
+            queue.flush();
+
+            // Otra versión (por ejemplo, de otro usuario) no se modifica.
+            queue.enqueue(employee(1, 120, 9));
+            assertEquals(9, queue.getPending(1).getVersion());
+            queue.flush();
+
+            assertEquals(List.of(3L, 4L, 9L), writer.versions);
+            assertEquals(List.of(100.0, 110.0, 120.0), writer.salaries.get(1));
+            assertEquals(1, queue.getRebaseCount(), "Solo debe recordarse la última versión del empleado.");
+        }
+    }
+
+    @Test
+    void testRebasesAreBounded() throws SQLException {
+        FakeWriter writer = new FakeWriter();
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, SIN_ENVIO_AUTOMATICO, new RecordingListener())) {
+            // Muchos empleados editados una sola vez no deben acumular versiones sin límite.
+            for (int id = 1; id <= 5000; id++) {
+                queue.enqueue(employee(id, 100, 3));
+            }
+            queue.flush();
+            assertTrue(queue.getRebaseCount() <= 1024, "Las versiones recordadas deben tener un límite: " + queue.getRebaseCount());
+
+            // Las más recientes se siguen usando; al usarlas se olvidan.
+            queue.enqueue(employee(5000, 110, 3));
+            assertEquals(4, queue.getPending(5000).getVersion());
+            int remembered = queue.getRebaseCount();
+            queue.discard(5000);
+            assertEquals(remembered, queue.getRebaseCount());
+            queue.enqueue(employee(5000, 120, 3));
+            assertEquals(3, queue.getPending(5000).getVersion(), "Una versión recordada se usa una sola vez.");
+        }
+    }
+
+    @Test
+    void testListenerCanFlush() throws Exception {
+        FakeWriter writer = new FakeWriter();
+        AtomicReference<EmployeeWriteBehind> queueRef = new AtomicReference<>();
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        CountDownLatch flushedFromListener = new CountDownLatch(1);
+        EmployeeWriteBehind.Listener listener = (employees, error) -> {
+            // Un listener que espera un flush() de otro hilo (como invokeAndWait en Swing) no debe bloquear la cola.
+            try {
+                other.submit(() -> queueRef.get().flush()).get(10, TimeUnit.SECONDS);
+                flushedFromListener.countDown();
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        };
+        try (EmployeeWriteBehind queue = new EmployeeWriteBehind(writer, 5, listener)) {
+            queueRef.set(queue);
+            writer.fail.set(true);
+            queue.enqueue(employee(1, 100, 3));
+            assertTrue(flushedFromListener.await(10, TimeUnit.SECONDS), "El listener debe poder llamar a flush().");
+            writer.fail.set(false);
+        } finally {
+            other.shutdownNow();
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package Gise.persistencia;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import Gise.dominio.Employee;
 import Gise.dominio.Position;
+import Gise.dominio.PositionTitle;
 import Gise.persistencia.PositionDAO;
 
+import java.io.Reader;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Random;
 import java.sql.SQLException;
 
@@ -17,6 +25,12 @@ import static org.junit.jupiter.api.Assertions.*;
 class PositionDAOTest {
     private PositionDAO positionDAO;
 
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // Las consultas de los DAO requieren el esquema al día (por ejemplo, la columna version)
+        new SchemaMigrator().migrate();
+    }
+
     @BeforeEach
     void setUp() {
         // Inicializar el DAO antes de cada prueba
@@ -140,6 +154,178 @@ class PositionDAOTest {
         }
     }
 
+    @Test
+    void testListTitles() throws SQLException {
+        // Un cargo con una descripción grande, que la proyección no debería traer
+        Position created = create(new Position(0, "Cargo Titulos Test", "x".repeat(100_000)));
+        try {
+            long start = System.nanoTime();
+            List<PositionTitle> titles = positionDAO.listTitles();
+            long titlesMillis = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            positionDAO.getCache().invalidate();
+            positionDAO.getAll();
+            long fullMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("Títulos de " + titles.size() + " cargos: " + titlesMillis + " ms, filas completas: " + fullMillis + " ms");
+
+            PositionTitle title = titles.stream().filter(t -> t.id() == created.getId()).findFirst().orElse(null);
+            assertNotNull(title, "El cargo creado debería estar en la lista de títulos.");
+            assertEquals("Cargo Titulos Test", title.title(), "El título debería coincidir con el del cargo.");
+            assertEquals("Cargo Titulos Test", title.toString(), "El ComboBox debería mostrar el título.");
+            for (int i = 1; i < titles.size(); i++) {
+                assertTrue(titles.get(i - 1).title().compareToIgnoreCase(titles.get(i).title()) <= 0,
+                        "Los títulos deberían venir ordenados.");
+            }
+        } finally {
+            positionDAO.delete(created);
+        }
+    }
+
+    @Test
+    void testLazyDescription() throws Exception {
+        // 200 cargos con descripciones de 8 KB: getAll solo debería traer su comienzo hasta que se pidan
+        final int count = 200;
+        String prefix = "Lazy " + new Random().nextInt(100000) + " ";
+        String longDescription = "Descripción extensa del cargo. ".repeat(270);
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            positions.add(new Position(0, prefix + i, longDescription + i));
+        }
+        positions.add(new Position(0, prefix + "corto", "Descripción corta"));
+        positionDAO.createAll(positions);
+
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        try {
+            // Antes: la misma consulta leyendo la descripción completa de cada fila
+            long start = System.nanoTime();
+            long chars = 0;
+            try (Statement st = connectionManager.connect().createStatement();
+                 ResultSet rs = st.executeQuery("SELECT id, title, description, CAST(version AS BIGINT), externalKey FROM Positions ORDER BY title")) {
+                while (rs.next()) {
+                    String description = rs.getString(3);
+                    chars += description == null ? 0 : description.length();
+                }
+            } finally {
+                connectionManager.disconnect();
+            }
+            long beforeMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Después: getAll sin caché, que lee solo los primeros caracteres de la descripción
+            // (el servidor sigue accediendo al TEXT de cada fila, pero no lo envía completo)
+            positionDAO.getCache().invalidate();
+            start = System.nanoTime();
+            ArrayList<Position> all = positionDAO.getAll();
+            long afterMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.println("getAll de " + all.size() + " cargos: antes " + beforeMillis + " ms (" + chars
+                    + " caracteres de descripción), después " + afterMillis + " ms (descripción recortada)");
+
+            Position lazy = all.stream().filter(p -> p.getId() == positions.get(0).getId()).findFirst().orElseThrow();
+            assertFalse(lazy.isDescriptionLoaded(), "La descripción larga no debería leerse en getAll.");
+            assertEquals(Position.SHORT_DESCRIPTION_LENGTH, lazy.getShortDescription().length(),
+                    "La descripción corta debería estar disponible sin leer la completa.");
+            assertTrue(lazy.getShortDescription().endsWith("..."), "La descripción corta debería indicar que se recortó.");
+            assertEquals(longDescription + 0, lazy.getDescription(), "La descripción debería leerse al pedirla.");
+            assertTrue(lazy.isDescriptionLoaded(), "Después de pedirla la descripción debería quedar en memoria.");
+
+            Position small = all.stream().filter(p -> p.getId() == positions.get(count).getId()).findFirst().orElseThrow();
+            assertTrue(small.isDescriptionLoaded(), "Una descripción corta debería leerse completa en la misma consulta.");
+            assertEquals("Descripción corta", small.getDescription());
+
+            // La descripción también se puede leer en partes, sin cargarla completa
+            StringBuilder read = new StringBuilder();
+            try (Reader reader = positionDAO.openDescription(positions.get(1).getId())) {
+                char[] buffer = new char[1024];
+                int n;
+                while ((n = reader.read(buffer)) != -1) {
+                    read.append(buffer, 0, n);
+                }
+            }
+            assertEquals(longDescription + 1, read.toString(), "El Reader debería devolver la descripción completa.");
+            assertNull(positionDAO.openDescription(-1), "Un cargo inexistente no debería tener descripción.");
+        } finally {
+            positionDAO.deleteByIds(positions.stream().mapToInt(Position::getId).toArray());
+        }
+    }
+
+    @Test
+    void testUpdateAllKeepsLazyDescriptions() throws SQLException {
+        // Actualizar cargos leídos con getAll no debe leer sus descripciones fila por fila
+        final int count = 50;
+        String prefix = "Lote " + new Random().nextInt(100000) + " ";
+        String longDescription = "Descripción extensa del cargo. ".repeat(270);
+        List<Position> positions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            positions.add(new Position(0, prefix + i, longDescription + i));
+        }
+        positionDAO.createAll(positions);
+
+        try {
+            List<Position> lazy = new ArrayList<>();
+            for (Position position : positionDAO.getAll()) {
+                if (position.getTitle().startsWith(prefix)) {
+                    assertFalse(position.isDescriptionLoaded(), "getAll no debería leer la descripción larga.");
+                    position.setTitle(position.getTitle() + "_actualizado");
+                    lazy.add(position);
+                }
+            }
+            assertEquals(count, lazy.size(), "getAll debería devolver todos los cargos creados.");
+
+            ConnectionManager connectionManager = ConnectionManager.getInstance();
+            long before = connectionManager.getStatementCount();
+            boolean[] res = positionDAO.updateAll(lazy);
+            assertEquals(2, connectionManager.getStatementCount() - before,
+                    "updateAll debería ejecutar solo el lote y la lectura de versiones.");
+
+            for (int i = 0; i < count; i++) {
+                assertTrue(res[i], "Todos los cargos deberían actualizarse.");
+                assertFalse(lazy.get(i).isDescriptionLoaded(), "updateAll no debería leer la descripción.");
+            }
+            Position stored = positionDAO.getById(positions.get(3).getId());
+            assertEquals(prefix + "3_actualizado", stored.getTitle());
+            assertEquals(longDescription + 3, stored.getDescription(), "La descripción guardada debería conservarse.");
+        } finally {
+            positionDAO.deleteByIds(positions.stream().mapToInt(Position::getId).toArray());
+        }
+    }
+
+    @Test
+    void testMergePositions() throws SQLException {
+        // Fusiona un cargo con 500 empleados en otro que ya tiene 10
+        EmployeeDAO employeeDAO = EmployeeDAO.getInstance();
+        Position source = create(new Position(0, "Cargo Origen Test", "Cargo que se fusiona"));
+        Position target = create(new Position(0, "Cargo Destino Test", "Cargo que queda"));
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < 510; i++) {
+            employees.add(new Employee(0, "Fusion " + i, i < 500 ? source.getId() : target.getId(), new Date(), 2000));
+        }
+        employeeDAO.createAll(employees);
+        Employee cached = employeeDAO.getById(employees.get(0).getId()); // Queda en la caché con el cargo origen
+
+        try {
+            assertThrows(IllegalArgumentException.class, () -> positionDAO.mergePositions(source.getId(), source.getId()),
+                    "Un cargo no debería poder fusionarse consigo mismo.");
+            assertThrows(SQLException.class, () -> positionDAO.mergePositions(source.getId(), -1),
+                    "La fusión con un cargo inexistente debería fallar.");
+            assertEquals(500, employeeDAO.getByPosition(source.getId()).size(),
+                    "Una fusión fallida no debería reasignar empleados.");
+
+            long start = System.nanoTime();
+            MergeResult result = positionDAO.mergePositions(source.getId(), target.getId());
+            System.out.println("Fusión de cargos: " + result + " en "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+            assertEquals(500, result.getReassigned(), "Deberían reasignarse todos los empleados del cargo origen.");
+            assertEquals(1, result.getDeleted(), "Debería eliminarse el cargo origen.");
+            assertEquals(510, employeeDAO.getByPosition(target.getId()).size(), "El destino debería tener todos los empleados.");
+            assertNull(positionDAO.getById(source.getId()), "El cargo origen debería eliminarse.");
+            assertEquals(target.getId(), employeeDAO.getById(cached.getId()).getPositionId(),
+                    "La caché de empleados no debería devolver el cargo anterior.");
+        } finally {
+            employeeDAO.deleteByIds(employees.stream().mapToInt(Employee::getId).toArray());
+            positionDAO.deleteByIds(new int[]{source.getId(), target.getId()});
+        }
+    }
+
     @Test
     void testShortDescription() {
         // Crear un cargo con una descripción larga
@@ -171,4 +357,63 @@ class PositionDAOTest {
         System.out.println("Descripción: " + position.getDescription());
         System.out.println("Descripción utilizada: " + shortDesc);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testSessionRollback() throws SQLException {
+        ConnectionManager connectionManager = ConnectionManager.getInstance();
+        Position position = new Position();
+        position.setTitle("Cargo Sesion " + new Random().nextInt(1000));
+        position.setDescription("Cargo creado dentro de una sesión que no se confirma");
+
+        Position created;
+        try (Session session = connectionManager.beginSession()) {
+            // Las operaciones del DAO se unen a la sesión y usan su misma conexión
+            created = positionDAO.create(position);
+            assertNotNull(created, "El cargo debería crearse dentro de la sesión.");
+            assertNotNull(positionDAO.getById(created.getId()), "El cargo debería verse dentro de la misma sesión.");
+            // Se cierra sin llamar a commit(), por lo que los cambios se deshacen
+        }
+
+        assertNull(positionDAO.getById(created.getId()), "El cargo no debería existir después del rollback.");
+    }
+
+    @Test
+    void testPositionCache() throws SQLException {
+        // Las lecturas repetidas se sirven desde la caché y las escrituras la invalidan
+        PositionCache cache = positionDAO.getCache();
+        Position created = positionDAO.create(new Position(0, "Cargo Cache " + new Random().nextInt(1000), "Cargo para la prueba de caché"));
+
+        try {
+            positionDAO.getById(created.getId()); // Carga la caché si hacía falta
+            ConnectionManager connectionManager = ConnectionManager.getInstance();
+            long statementsBefore = connectionManager.getStatementCount();
+            long hitsBefore = cache.getHits();
+            long start = System.nanoTime();
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(created.getTitle(), positionDAO.getById(created.getId()).getTitle(),
+                        "La caché debería devolver el cargo creado.");
+            }
+            long elapsedMicros = (System.nanoTime() - start) / 1000;
+            System.out.println("1000 lecturas desde la caché: " + elapsedMicros + " µs");
+            assertEquals(statementsBefore, connectionManager.getStatementCount(),
+                    "Las lecturas desde la caché no deberían ejecutar sentencias.");
+            assertEquals(hitsBefore + 1000, cache.getHits(), "Cada lectura debería contar como acierto.");
+
+            // Modificar la copia devuelta no debe alterar la caché
+            positionDAO.getById(created.getId()).setTitle("Modificado fuera del DAO");
+            assertEquals(created.getTitle(), positionDAO.getById(created.getId()).getTitle(),
+                    "La caché debería devolver copias independientes.");
+
+            // Una actualización invalida la caché y la próxima lectura ve el cambio
+            long evictionsBefore = cache.getEvictions();
+            created.setTitle(created.getTitle() + "_actualizado");
+            assertTrue(positionDAO.update(created), "La actualización del cargo debería ser exitosa.");
+            assertTrue(cache.getEvictions() > evictionsBefore, "La actualización debería invalidar la caché.");
+            assertEquals(created.getTitle(), positionDAO.getById(created.getId()).getTitle(),
+                    "La caché debería reflejar la actualización.");
+        } finally {
+            positionDAO.delete(created);
+        }
+        assertNull(positionDAO.getById(created.getId()), "El cargo eliminado no debería seguir en la caché.");
+    }
+}
@@ -0,0 +1,162 @@
+package Gise.persistencia;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import Gise.dominio.Employee;
+import Gise.dominio.Position;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas para la clase SchemaMigrator y los índices de la primera migración.
+ */
+class SchemaMigratorTest {
+    private static final Pattern ROWS_READ = Pattern.compile("ActualRowsRead=\"(\\d+)\"");
+    private static final Pattern INDEX = Pattern.compile("Index=\"\\[([^\\]]+)\\]\"");
+
+    private SchemaMigrator migrator;
+    private ConnectionManager conn;
+
+    @BeforeEach
+    void setUp() {
+        migrator = new SchemaMigrator();
+        conn = ConnectionManager.getInstance();
+    }
+
+    @Test
+    void testMigrate() throws SQLException {
+        migrator.migrate();
+
+        // Una segunda ejecución no debe aplicar nada
+        assertTrue(migrator.migrate().isEmpty(), "Las migraciones ya aplicadas no deberían volver a aplicarse.");
+        assertTrue(migrator.getCurrentVersion() >= 1, "La versión del esquema debería ser al menos 1.");
+
+        try (Statement st = conn.connect().createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM sys.indexes WHERE name IN " +
+                     "('IX_Employees_positionId', 'IX_Employees_name', 'IX_Positions_title', 'IX_Users_name')")) {
+            rs.next();
+            assertEquals(4, rs.getInt(1), "Deberían existir los cuatro índices de la migración 1.");
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    @Test
+    void testIndexRowsRead() throws SQLException {
+        // Compara las filas leídas con los índices nuevos contra las mismas consultas forzadas
+        // a recorrer la tabla (WITH (INDEX(0))), como estaban antes de la migración.
+        migrator.migrate();
+
+        final int count = 20_000;
+        Position filled = PositionDAO.getInstance().create(new Position(0, "Cargo Plan Test", "Cargo para la prueba de planes"));
+        Position empty = PositionDAO.getInstance().create(new Position(0, "Cargo Plan Vacio Test", "Cargo sin empleados"));
+        String prefix = "Plan " + new Random().nextInt(100000) + " ";
+
+        List<Employee> employees = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            employees.add(new Employee(0, prefix + i, filled.getId(), new Date(), 3000));
+        }
+        EmployeeDAO.getInstance().createAll(employees);
+
+        try {
+            Connection connection = conn.connect();
+            try {
+                String byPosition = "SELECT id, name, positionId, hireDate, salary FROM Employees %s WHERE positionId = " + empty.getId();
+                long[] positionReads = report(connection, "Employees.positionId", byPosition);
+                assertTrue(positionReads[1] < positionReads[0],
+                        "Con el índice se deberían leer menos filas que recorriendo la tabla.");
+
+                String byName = "SELECT TOP 50 id, name, positionId, hireDate, salary FROM Employees %s " +
+                        "WHERE name LIKE '" + prefix + "1%%' ORDER BY name, id";
+                long[] nameReads = report(connection, "Employees.name", byName);
+                assertTrue(nameReads[1] < nameReads[0],
+                        "Con el índice se deberían leer menos filas que recorriendo la tabla.");
+
+                report(connection, "Positions.title", "SELECT id, title, description FROM Positions %s ORDER BY title");
+                report(connection, "Users.name", "SELECT TOP 50 id, name, email, status FROM Users %s WHERE name LIKE 'a%%' ORDER BY name, id");
+            } finally {
+                conn.disconnect();
+            }
+        } finally {
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = employees.get(i).getId();
+            }
+            EmployeeDAO.getInstance().deleteByIds(ids);
+            PositionDAO.getInstance().delete(filled);
+            PositionDAO.getInstance().delete(empty);
+        }
+    }
+
+    /**
+     * Ejecuta la consulta sin índices secundarios y con ellos, e imprime las filas leídas y los
+     * índices usados en cada caso.
+     *
+     * @param sql consulta con un {@code %s} donde va la indicación de tabla.
+     * @return las filas leídas antes (sin índices) y después (con índices).
+     */
+    private long[] report(Connection connection, String label, String sql) throws SQLException {
+        Plan before = execute(connection, String.format(sql, "WITH (INDEX(0))"));
+        Plan after = execute(connection, String.format(sql, ""));
+        System.out.println(label + ": antes " + before.rowsRead + " filas leídas " + before.indexes
+                + ", después " + after.rowsRead + " filas leídas " + after.indexes);
+        return new long[]{before.rowsRead, after.rowsRead};
+    }
+
+    /**
+     * Ejecuta la consulta con SET STATISTICS XML para obtener el plan real.
+     */
+    private Plan execute(Connection connection, String sql) throws SQLException {
+        Plan plan = new Plan();
+        try (Statement st = connection.createStatement()) {
+            st.execute("SET STATISTICS XML ON");
+            try {
+                boolean isResultSet = st.execute(sql);
+                while (isResultSet || st.getUpdateCount() != -1) {
+                    if (isResultSet) {
+                        try (ResultSet rs = st.getResultSet()) {
+                            boolean showplan = rs.getMetaData().getColumnName(1).contains("Showplan");
+                            while (rs.next()) {
+                                if (showplan) {
+                                    plan.parse(rs.getString(1));
+                                }
+                            }
+                        }
+                    }
+                    isResultSet = st.getMoreResults();
+                }
+            } finally {
+                st.execute("SET STATISTICS XML OFF");
+            }
+        }
+        return plan;
+    }
+
+    private static class Plan {
+        long rowsRead;
+        final TreeSet<String> indexes = new TreeSet<>();
+
+        void parse(String xml) {
+            Matcher rows = ROWS_READ.matcher(xml);
+            while (rows.find()) {
+                rowsRead += Long.parseLong(rows.group(1));
+            }
+            Matcher index = INDEX.matcher(xml);
+            while (index.find()) {
+                indexes.add(index.group(1));
+            }
+        }
+    }
+}
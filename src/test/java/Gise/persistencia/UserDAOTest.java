@@ -1,5 +1,6 @@
 package Gise.persistencia;
 
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach; // Anotación para indicar que el método se ejecuta antes de cada método de prueba.
 import org.junit.jupiter.api.Test;       // Anotación para indicar que el método es un caso de prueba.
 import Gise.dominio.User;                // Clase que representa la entidad de usuario utilizada en las pruebas.
@@ -16,6 +17,12 @@ import static org.junit.jupiter.api.Assertions.*; // Importación estática de m
 class UserDAOTest {
     private UserDAO userDAO; // Instancia de la clase UserDAO que se va a probar.
 
+    @BeforeAll
+    static void migrate() throws SQLException {
+        // Las consultas de los DAO requieren el esquema al día (por ejemplo, la columna version)
+        new SchemaMigrator().migrate();
+    }
+
     @BeforeEach
     void setUp(){
         // Método que se ejecuta antes de cada método de prueba (@Test).